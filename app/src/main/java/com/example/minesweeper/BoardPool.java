@@ -0,0 +1,152 @@
+package com.example.minesweeper;
+
+import java.util.ArrayDeque;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/*
+ keeps a few boards for one set of settings built ahead of time, so starting a game only
+ takes one from the pool. Boards are built, and finished boards reset for reuse, on a
+ background thread; take() hands one over at once when one is ready and otherwise delivers
+ it through a callback on callbackExecutor once it is built.
+
+ Boards place their mines on the first tap, so all that is done ahead of time is allocating and
+ clearing the arrays. Placing the mines and counting adjacency cost more than that on a big
+ board; GameActivity runs them off the main thread once the first tap says where they go.
+ */
+public class BoardPool {
+
+    public interface Callback {
+        void onBoardReady(GameBoard board);
+    }
+
+    private final int rows;
+    private final int columns;
+    private final int minesPercent;
+    private final int capacity;
+    private final Executor callbackExecutor;
+    private final ExecutorService executor;
+    // Only used on the background thread
+    private final SplittableRandom random = new SplittableRandom();
+
+    // Guarded by this
+    private final ArrayDeque<GameBoard> ready = new ArrayDeque<>();
+    private int building;
+    private Callback waiting;
+    private boolean cancelled;
+
+    public BoardPool(int rows, int columns, int minesPercent, int capacity, Executor callbackExecutor) {
+        this.rows = rows;
+        this.columns = columns;
+        this.minesPercent = minesPercent;
+        this.capacity = capacity;
+        this.callbackExecutor = callbackExecutor;
+        this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "board-pool");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+        refill();
+    }
+
+    public boolean matches(int rows, int columns, int minesPercent) {
+        return this.rows == rows && this.columns == columns && this.minesPercent == minesPercent;
+    }
+
+    /*
+     returns a ready board, or null when none is ready yet, in which case callback gets the next
+     one built; a later take() replaces the callback of an earlier one that is still waiting
+     */
+    public synchronized GameBoard take(Callback callback) {
+        if (cancelled) {
+            throw new IllegalStateException("Board pool was cancelled");
+        }
+        GameBoard board = ready.poll();
+        if (board == null) {
+            waiting = callback;
+        }
+        refill();
+        return board;
+    }
+
+    // Takes back a board that is no longer shown; it is reset off the calling thread and reused
+    public void recycle(final GameBoard board) {
+        if (!board.isSafeFirstClick() || !matches(board.getRows(), board.getColumns(), board.getMinesPercent())) {
+            return;
+        }
+        synchronized (this) {
+            if (cancelled || ready.size() + building >= capacity) {
+                return;
+            }
+            building++;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                board.reset(random.nextLong());
+                deliver(board);
+            }
+        });
+    }
+
+    // Drops the spare boards and stops building more; callbacks that have not run yet never will
+    public synchronized void cancel() {
+        cancelled = true;
+        waiting = null;
+        ready.clear();
+        executor.shutdownNow();
+    }
+
+    // Builds boards until ready and in-progress ones fill the pool, plus one for a waiting take()
+    private synchronized void refill() {
+        while (!cancelled && ready.size() + building < capacity + (waiting != null ? 1 : 0)) {
+            building++;
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    deliver(new GameBoard(rows, columns, minesPercent, random.nextLong(), true));
+                }
+            });
+        }
+    }
+
+    private void deliver(final GameBoard board) {
+        final Callback callback;
+        synchronized (this) {
+            building--;
+            if (cancelled) {
+                return;
+            }
+            callback = waiting;
+            waiting = null;
+            if (callback == null) {
+                ready.add(board);
+                return;
+            }
+        }
+        callbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                boolean stillWanted;
+                synchronized (BoardPool.this) {
+                    stillWanted = !cancelled;
+                }
+                if (stillWanted) {
+                    callback.onBoardReady(board);
+                }
+            }
+        });
+        refill();
+    }
+
+    public synchronized int getReadyCount() {
+        return ready.size();
+    }
+}
@@ -0,0 +1,331 @@
+package com.example.minesweeper;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.view.GestureDetector;
+import android.view.HapticFeedbackConstants;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.SoundEffectConstants;
+import android.view.View;
+
+/*
+    viewport onto the board: pinch to zoom, drag to pan, and only the cells in view are drawn
+    and hit-tested, so a frame costs the same on a 10x10 board as on a 1000x1000 one.
+    Taps and long presses are mapped back to a (row, col).
+
+    Board coordinates are cell pitches at the base cell size; on screen
+    x = boardX * scale - offsetX, and the same for y.
+ */
+public class BoardView extends View {
+
+    public interface OnCellClickListener {
+        void onCellClick(int row, int col);
+
+        boolean onCellLongClick(int row, int col);
+    }
+
+    private static final int CELL_MARGIN = 2;
+    private static final float CORNER_RADIUS = 8f;
+    // On-screen pitch limits, the lower one caps how many cells a frame can draw
+    private static final float MIN_PITCH_DP = 20f;
+    private static final float MAX_PITCH_DP = 120f;
+
+    private GameBoard gameBoard;
+    private OnCellClickListener listener;
+    private int cellSize;
+    private CellRenderCache renderCache;
+    private final RectF cellRect = new RectF();
+    private final GestureDetector gestureDetector;
+    private final ScaleGestureDetector scaleDetector;
+    private final float minPitchPx;
+    private final float maxPitchPx;
+    private float scale = 1f;
+    private float offsetX;
+    private float offsetY;
+    // Fit the board to the view once it has a size
+    private boolean fitPending;
+    private GameScreenMetrics metrics;
+
+    public BoardView(Context context) {
+        this(context, null);
+    }
+
+    public BoardView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        float density = context.getResources().getDisplayMetrics().density;
+        minPitchPx = MIN_PITCH_DP * density;
+        maxPitchPx = MAX_PITCH_DP * density;
+        gestureDetector = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onDown(MotionEvent e) {
+                return gameBoard != null;
+            }
+
+            @Override
+            public boolean onScroll(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY) {
+                panBy(distanceX, distanceY);
+                return true;
+            }
+
+            @Override
+            public boolean onSingleTapUp(MotionEvent e) {
+                int row = rowAt(e.getY());
+                int col = columnAt(e.getX());
+                if (listener != null && row >= 0 && col >= 0) {
+                    playSoundEffect(SoundEffectConstants.CLICK);
+                    listener.onCellClick(row, col);
+                    return true;
+                }
+                return false;
+            }
+
+            @Override
+            public void onLongPress(MotionEvent e) {
+                int row = rowAt(e.getY());
+                int col = columnAt(e.getX());
+                if (listener != null && row >= 0 && col >= 0 && listener.onCellLongClick(row, col)) {
+                    performHapticFeedback(HapticFeedbackConstants.LONG_PRESS);
+                }
+            }
+        });
+        scaleDetector = new ScaleGestureDetector(context, new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+            @Override
+            public boolean onScale(ScaleGestureDetector detector) {
+                zoomBy(detector.getScaleFactor(), detector.getFocusX(), detector.getFocusY());
+                return true;
+            }
+        });
+    }
+
+    // cellSize is the cell size at scale 1, the bitmaps and text are prepared for it
+    public void setBoard(GameBoard gameBoard, int cellSize) {
+        boolean sameSize = this.gameBoard != null && this.cellSize == cellSize
+                && this.gameBoard.getRows() == gameBoard.getRows()
+                && this.gameBoard.getColumns() == gameBoard.getColumns();
+        this.gameBoard = gameBoard;
+        this.cellSize = cellSize;
+        if (renderCache != null) {
+            renderCache.prepare(cellSize);
+        }
+        // A restart keeps the zoom and position, a different board is fitted again
+        if (!sameSize) {
+            fitPending = true;
+            fitToView();
+        }
+        requestLayout();
+        invalidate();
+    }
+
+    public void setRenderCache(CellRenderCache renderCache) {
+        this.renderCache = renderCache;
+        if (cellSize > 0) {
+            renderCache.prepare(cellSize);
+        }
+        invalidate();
+    }
+
+    // Receives the duration of every draw; null to stop timing
+    public void setMetrics(GameScreenMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public void setOnCellClickListener(OnCellClickListener listener) {
+        this.listener = listener;
+    }
+
+    // Called after a move with the squares it changed; redraws once if any of them is in view
+    public void onCellsChanged(CellChangeSet changes) {
+        if (gameBoard == null) {
+            return;
+        }
+        int columns = gameBoard.getColumns();
+        int firstRow = firstVisible(offsetY);
+        int lastRow = lastVisible(offsetY, getHeight(), gameBoard.getRows());
+        int firstCol = firstVisible(offsetX);
+        int lastCol = lastVisible(offsetX, getWidth(), columns);
+        for (int k = 0; k < changes.size(); k++) {
+            int index = changes.get(k);
+            int row = index / columns;
+            int col = index % columns;
+            if (row >= firstRow && row <= lastRow && col >= firstCol && col <= lastCol) {
+                invalidate();
+                return;
+            }
+        }
+    }
+
+    private int pitch() {
+        return cellSize + 2 * CELL_MARGIN;
+    }
+
+    private float minScale() {
+        // No further out than the whole board, unless that makes the cells too small to draw
+        float fit = Math.min(getWidth() / (float) (gameBoard.getColumns() * pitch()),
+                getHeight() / (float) (gameBoard.getRows() * pitch()));
+        return Math.max(Math.min(fit, 1f), minPitchPx / pitch());
+    }
+
+    private float maxScale() {
+        return Math.max(maxPitchPx / pitch(), 1f);
+    }
+
+    // Shows the board at scale 1 or smaller if it fits, otherwise at the smallest pitch, centred
+    private void fitToView() {
+        if (!fitPending || gameBoard == null || getWidth() == 0 || getHeight() == 0) {
+            return;
+        }
+        fitPending = false;
+        scale = minScale();
+        offsetX = (gameBoard.getColumns() * pitch() * scale - getWidth()) / 2f;
+        offsetY = (gameBoard.getRows() * pitch() * scale - getHeight()) / 2f;
+        clampOffsets();
+    }
+
+    private void zoomBy(float factor, float focusX, float focusY) {
+        if (gameBoard == null) {
+            return;
+        }
+        float newScale = Math.max(minScale(), Math.min(scale * factor, maxScale()));
+        // Keep the board point under the focus where it is
+        offsetX = (focusX + offsetX) / scale * newScale - focusX;
+        offsetY = (focusY + offsetY) / scale * newScale - focusY;
+        scale = newScale;
+        clampOffsets();
+        invalidate();
+    }
+
+    private void panBy(float dx, float dy) {
+        if (gameBoard == null) {
+            return;
+        }
+        offsetX += dx;
+        offsetY += dy;
+        clampOffsets();
+        invalidate();
+    }
+
+    // Centres an axis the board does not fill, otherwise keeps the board edge at the view edge
+    private void clampOffsets() {
+        offsetX = clampOffset(offsetX, gameBoard.getColumns() * pitch() * scale, getWidth());
+        offsetY = clampOffset(offsetY, gameBoard.getRows() * pitch() * scale, getHeight());
+    }
+
+    private static float clampOffset(float offset, float content, float view) {
+        if (content <= view) {
+            return (content - view) / 2f;
+        }
+        return Math.max(0f, Math.min(offset, content - view));
+    }
+
+    private int rowAt(float y) {
+        float boardY = (y + offsetY) / scale;
+        int row = (int) (boardY / pitch());
+        return boardY >= 0 && row < gameBoard.getRows() ? row : -1;
+    }
+
+    private int columnAt(float x) {
+        float boardX = (x + offsetX) / scale;
+        int col = (int) (boardX / pitch());
+        return boardX >= 0 && col < gameBoard.getColumns() ? col : -1;
+    }
+
+    private int firstVisible(float offset) {
+        return Math.max(0, (int) (offset / scale / pitch()));
+    }
+
+    private int lastVisible(float offset, int size, int count) {
+        return Math.min(count - 1, (int) ((offset + size) / scale / pitch()));
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        // Asks for the whole board at scale 1; under match_parent the view just takes the space given
+        int columns = gameBoard != null ? gameBoard.getColumns() : 0;
+        int rows = gameBoard != null ? gameBoard.getRows() : 0;
+        int width = columns * pitch() + getPaddingLeft() + getPaddingRight();
+        int height = rows * pitch() + getPaddingTop() + getPaddingBottom();
+        setMeasuredDimension(resolveSize(width, widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        if (gameBoard == null) {
+            return;
+        }
+        if (fitPending) {
+            fitToView();
+        } else {
+            // Rotation or a resize may allow less zoom than before
+            scale = Math.max(minScale(), Math.min(scale, maxScale()));
+            clampOffsets();
+        }
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (gameBoard == null || renderCache == null) {
+            return;
+        }
+        long drawStart = System.nanoTime();
+        float textOffset = renderCache.getTextOffset();
+        int firstRow = firstVisible(offsetY);
+        int lastRow = lastVisible(offsetY, getHeight(), gameBoard.getRows());
+        int firstCol = firstVisible(offsetX);
+        int lastCol = lastVisible(offsetX, getWidth(), gameBoard.getColumns());
+
+        canvas.save();
+        canvas.translate(-offsetX, -offsetY);
+        canvas.scale(scale, scale);
+        for (int i = firstRow; i <= lastRow; i++) {
+            for (int j = firstCol; j <= lastCol; j++) {
+                float left = j * pitch() + CELL_MARGIN;
+                float top = i * pitch() + CELL_MARGIN;
+                cellRect.set(left, top, left + cellSize, top + cellSize);
+
+                GameBoard.CellState state = gameBoard.getState(i, j);
+                boolean isMine = gameBoard.isMine(i, j);
+                canvas.drawRoundRect(cellRect, CORNER_RADIUS, CORNER_RADIUS, renderCache.getPaint(state, isMine));
+
+                if (state == GameBoard.CellState.FLAGGED) {
+                    drawCentered(canvas, renderCache.getFlagBitmap());
+                } else if (state == GameBoard.CellState.UNCOVERED) {
+                    if (isMine) {
+                        drawCentered(canvas, renderCache.getBombBitmap());
+                    } else {
+                        int adjacentMines = gameBoard.getAdjacentMines(i, j);
+                        if (adjacentMines > 0) {
+                            canvas.drawText(renderCache.getDigit(adjacentMines), cellRect.centerX(),
+                                    cellRect.centerY() + textOffset, renderCache.getTextPaint());
+                        }
+                    }
+                }
+            }
+        }
+        canvas.restore();
+        if (metrics != null) {
+            metrics.onBoardDrawn(System.nanoTime() - drawStart);
+        }
+    }
+
+    private void drawCentered(Canvas canvas, Bitmap bitmap) {
+        canvas.drawBitmap(bitmap, cellRect.centerX() - bitmap.getWidth() / 2f,
+                cellRect.centerY() - bitmap.getHeight() / 2f, renderCache.getBitmapPaint());
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (gameBoard == null) {
+            return super.onTouchEvent(event);
+        }
+        // Both detectors see every event; a pinch also pans with its focus through onScroll
+        boolean scaled = scaleDetector.onTouchEvent(event);
+        boolean handled = gestureDetector.onTouchEvent(event);
+        return scaled || handled || super.onTouchEvent(event);
+    }
+}
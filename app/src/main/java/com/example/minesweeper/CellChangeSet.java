@@ -0,0 +1,38 @@
+package com.example.minesweeper;
+
+/*
+ indices (row * columns + col) of the squares changed by the last move,
+ kept in one growable int array that is reused from move to move
+ */
+public final class CellChangeSet {
+
+    // Capacity kept across clear(); a set grown past it by a big flood is dropped on the next move
+    private static final int KEPT_CAPACITY = 1 << 16;
+
+    private int[] indices = new int[64];
+    private int size;
+
+    void clear() {
+        size = 0;
+        if (indices.length > KEPT_CAPACITY) {
+            indices = new int[64];
+        }
+    }
+
+    void add(int index) {
+        if (size == indices.length) {
+            int[] grown = new int[size * 2];
+            System.arraycopy(indices, 0, grown, 0, size);
+            indices = grown;
+        }
+        indices[size++] = index;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int get(int position) {
+        return indices[position];
+    }
+}
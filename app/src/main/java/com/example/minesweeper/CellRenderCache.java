@@ -0,0 +1,126 @@
+package com.example.minesweeper;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.drawable.Drawable;
+import android.util.TypedValue;
+import androidx.core.content.ContextCompat;
+
+/*
+    paints, bitmaps and digit glyphs for drawing cells, built once per colour theme
+    so that drawing a frame allocates nothing
+ */
+public class CellRenderCache {
+
+    private static final float IMAGE_SCALE = 0.85f; // 85% of cell size for bigger images
+    // Index = adjacent mine count, 0 draws nothing
+    private static final String[] DIGITS = {"", "1", "2", "3", "4", "5", "6", "7", "8"};
+
+    private final Paint coveredPaint;
+    private final Paint uncoveredPaint;
+    private final Paint suspectedPaint;
+    private final Paint minePaint;
+    private final Paint textPaint;
+    private final Paint bitmapPaint;
+    private final Drawable flagDrawable;
+    private final Drawable bombDrawable;
+    private Bitmap flagBitmap;
+    private Bitmap bombBitmap;
+    private int cellSize;
+    private final float textOffset;
+
+    public CellRenderCache(Context context, int coveredColorResId, int uncoveredColorResId,
+                           int suspectedColorResId, int mineColorResId) {
+        coveredPaint = fillPaint(ContextCompat.getColor(context, coveredColorResId));
+        uncoveredPaint = fillPaint(ContextCompat.getColor(context, uncoveredColorResId));
+        suspectedPaint = fillPaint(ContextCompat.getColor(context, suspectedColorResId));
+        minePaint = fillPaint(ContextCompat.getColor(context, mineColorResId));
+
+        textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        textPaint.setColor(Color.BLACK);
+        textPaint.setTextAlign(Paint.Align.CENTER);
+        textPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 16,
+                context.getResources().getDisplayMetrics()));
+        // Offset from the cell centre to the baseline that centres a digit vertically
+        textOffset = -(textPaint.descent() + textPaint.ascent()) / 2;
+
+        bitmapPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        flagDrawable = ContextCompat.getDrawable(context, R.drawable.flag);
+        bombDrawable = ContextCompat.getDrawable(context, R.drawable.bomba);
+    }
+
+    private static Paint fillPaint(int color) {
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setStyle(Paint.Style.FILL);
+        paint.setColor(color);
+        return paint;
+    }
+
+    // Rasterises the flag and bomb at the size they are drawn for this cell size, once
+    public void prepare(int cellSize) {
+        if (cellSize == this.cellSize && flagBitmap != null) {
+            return;
+        }
+        this.cellSize = cellSize;
+        int imageSize = Math.max(1, (int) (cellSize * IMAGE_SCALE));
+        flagBitmap = rasterize(flagDrawable, imageSize);
+        bombBitmap = rasterize(bombDrawable, imageSize);
+    }
+
+    // Draws the drawable into a size x size bitmap, fitted and centred like ImageView's FIT_CENTER
+    private static Bitmap rasterize(Drawable drawable, int size) {
+        Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        int width = size;
+        int height = size;
+        int intrinsicWidth = drawable.getIntrinsicWidth();
+        int intrinsicHeight = drawable.getIntrinsicHeight();
+        if (intrinsicWidth > 0 && intrinsicHeight > 0) {
+            if (intrinsicWidth > intrinsicHeight) {
+                height = size * intrinsicHeight / intrinsicWidth;
+            } else {
+                width = size * intrinsicWidth / intrinsicHeight;
+            }
+        }
+        int left = (size - width) / 2;
+        int top = (size - height) / 2;
+        drawable.setBounds(left, top, left + width, top + height);
+        drawable.draw(new Canvas(bitmap));
+        return bitmap;
+    }
+
+    public Paint getPaint(GameBoard.CellState state, boolean isMine) {
+        if (state == GameBoard.CellState.COVERED) {
+            return coveredPaint;
+        } else if (state == GameBoard.CellState.FLAGGED) {
+            return suspectedPaint;
+        }
+        return isMine ? minePaint : uncoveredPaint;
+    }
+
+    public Bitmap getFlagBitmap() {
+        return flagBitmap;
+    }
+
+    public Bitmap getBombBitmap() {
+        return bombBitmap;
+    }
+
+    public Paint getBitmapPaint() {
+        return bitmapPaint;
+    }
+
+    public String getDigit(int adjacentMines) {
+        return DIGITS[adjacentMines];
+    }
+
+    public Paint getTextPaint() {
+        return textPaint;
+    }
+
+    public float getTextOffset() {
+        return textOffset;
+    }
+}
@@ -0,0 +1,378 @@
+package com.example.minesweeper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ endless Minesweeper board split into 64x64 chunks.
+
+ Whether a square holds a mine is a pure function of the seed and its coordinates, so a chunk
+ can be generated on demand and always agrees with its neighbours at the edges. Only chunks the
+ player has touched are stored: a chunk being played keeps one packed byte per square (same
+ layout as GameBoard), and a chunk whose safe squares are all open shrinks to a bitmap of its
+ flags, expanding back with those squares open if a move lands on one of its mines. The squares
+ around (0, 0) never hold a mine, so the first tap there is always safe.
+ */
+public class ChunkedBoard {
+
+    public static final int CHUNK_SIZE = 64;
+    private static final int CHUNK_SHIFT = 6;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int CHUNK_CELLS = CHUNK_SIZE * CHUNK_SIZE;
+    // Squares opened by one move at most; large open areas keep expanding when tapped again
+    private static final int MAX_REVEAL_CELLS = 1 << 16;
+
+    // Same packing as GameBoard: bits 0-3 adjacent mines, bits 4-5 CellState ordinal, bit 6 mine
+    private static final int ADJACENT_MASK = 0x0F;
+    private static final int STATE_SHIFT = 4;
+    private static final int STATE_MASK = 0x03 << STATE_SHIFT;
+    private static final int MINE_BIT = 0x40;
+    private static final int COVERED = GameBoard.CellState.COVERED.ordinal() << STATE_SHIFT;
+    private static final int UNCOVERED = GameBoard.CellState.UNCOVERED.ordinal() << STATE_SHIFT;
+    private static final int FLAGGED = GameBoard.CellState.FLAGGED.ordinal() << STATE_SHIFT;
+    private static final GameBoard.CellState[] STATES = GameBoard.CellState.values();
+
+    /*
+     a chunk that is being played
+     */
+    private static final class Chunk {
+        final long key;
+        final byte[] cells = new byte[CHUNK_CELLS];
+        int safeCells;
+        int uncovered;
+        int flagged;
+        boolean touched;
+
+        Chunk(long key) {
+            this.key = key;
+        }
+    }
+
+    private final long seed;
+    // A square is a mine when the top 32 bits of its hash fall below this
+    private final long mineThreshold;
+    private final Map<Long, Chunk> activeChunks = new HashMap<>();
+    // Settled chunks: every safe square is open, so only the flags on mines need keeping
+    private final Map<Long, long[]> settledChunks = new HashMap<>();
+    private final List<Chunk> touchedChunks = new ArrayList<>();
+    // Most recently used active chunk, since moves mostly stay inside one chunk
+    private Chunk lastChunk;
+    private final boolean[] mineScratch = new boolean[(CHUNK_SIZE + 2) * (CHUNK_SIZE + 2)];
+    private long[] revealWorklist = new long[64];
+    private long uncoveredCells;
+    private boolean gameOver;
+
+    public ChunkedBoard(long seed, int minesPercent) {
+        this.seed = seed;
+        this.mineThreshold = (long) minesPercent * (1L << 32) / 100;
+        this.uncoveredCells = 0;
+        this.gameOver = false;
+    }
+
+    public boolean isMine(int row, int col) {
+        if (row >= -1 && row <= 1 && col >= -1 && col <= 1) {
+            return false;
+        }
+        long h = mix(seed ^ mix(((long) row << 32) | (col & 0xFFFFFFFFL)));
+        return (h >>> 32) < mineThreshold;
+    }
+
+    private static long mix(long z) {
+        // SplitMix64 finalizer
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long chunkKey(int chunkRow, int chunkCol) {
+        return ((long) chunkRow << 32) | (chunkCol & 0xFFFFFFFFL);
+    }
+
+    private static int localIndex(int row, int col) {
+        return (row & CHUNK_MASK) * CHUNK_SIZE + (col & CHUNK_MASK);
+    }
+
+    private Chunk createChunk(int chunkRow, int chunkCol) {
+        int side = CHUNK_SIZE + 2;
+        int baseRow = chunkRow << CHUNK_SHIFT;
+        int baseCol = chunkCol << CHUNK_SHIFT;
+
+        // Mines of the chunk plus a one-square border taken from the same pure function
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                mineScratch[r * side + c] = isMine(baseRow + r - 1, baseCol + c - 1);
+            }
+        }
+
+        Chunk chunk = new Chunk(chunkKey(chunkRow, chunkCol));
+        for (int r = 0; r < CHUNK_SIZE; r++) {
+            for (int c = 0; c < CHUNK_SIZE; c++) {
+                int center = (r + 1) * side + c + 1;
+                if (mineScratch[center]) {
+                    chunk.cells[r * CHUNK_SIZE + c] = (byte) MINE_BIT;
+                    continue;
+                }
+                int count = 0;
+                for (int i = -1; i <= 1; i++) {
+                    for (int j = -1; j <= 1; j++) {
+                        if (mineScratch[center + i * side + j]) {
+                            count++;
+                        }
+                    }
+                }
+                chunk.cells[r * CHUNK_SIZE + c] = (byte) count;
+                chunk.safeCells++;
+            }
+        }
+        return chunk;
+    }
+
+    // Expands a settled chunk back to one byte per square: every safe square open, flags restored
+    private Chunk reopenChunk(int chunkRow, int chunkCol, long[] settledFlags) {
+        Chunk chunk = createChunk(chunkRow, chunkCol);
+        for (int local = 0; local < CHUNK_CELLS; local++) {
+            if ((chunk.cells[local] & MINE_BIT) == 0) {
+                chunk.cells[local] |= UNCOVERED;
+            } else if ((settledFlags[local >> 6] & (1L << local)) != 0) {
+                chunk.cells[local] |= FLAGGED;
+                chunk.flagged++;
+            }
+        }
+        chunk.uncovered = chunk.safeCells;
+        return chunk;
+    }
+
+    private Chunk findActiveChunk(long key) {
+        if (lastChunk != null && lastChunk.key == key) {
+            return lastChunk;
+        }
+        Chunk chunk = activeChunks.get(key);
+        if (chunk != null) {
+            lastChunk = chunk;
+        }
+        return chunk;
+    }
+
+    // Active chunk holding the square, generated if needed and remembered as touched by this move
+    private Chunk activeChunk(int row, int col) {
+        int chunkRow = row >> CHUNK_SHIFT;
+        int chunkCol = col >> CHUNK_SHIFT;
+        long key = chunkKey(chunkRow, chunkCol);
+        Chunk chunk = findActiveChunk(key);
+        if (chunk == null) {
+            long[] settledFlags = settledChunks.remove(key);
+            chunk = settledFlags != null ? reopenChunk(chunkRow, chunkCol, settledFlags)
+                    : createChunk(chunkRow, chunkCol);
+            activeChunks.put(key, chunk);
+            lastChunk = chunk;
+        }
+        if (!chunk.touched) {
+            chunk.touched = true;
+            touchedChunks.add(chunk);
+        }
+        return chunk;
+    }
+
+    // Packed byte of any square, computed on the fly for chunks that are not stored
+    private int cellAt(int row, int col) {
+        long key = chunkKey(row >> CHUNK_SHIFT, col >> CHUNK_SHIFT);
+        Chunk chunk = findActiveChunk(key);
+        if (chunk != null) {
+            return chunk.cells[localIndex(row, col)];
+        }
+        boolean mine = isMine(row, col);
+        long[] settledFlags = settledChunks.get(key);
+        if (settledFlags != null) {
+            int local = localIndex(row, col);
+            if (!mine) {
+                return UNCOVERED | countAdjacentMines(row, col);
+            }
+            return MINE_BIT | ((settledFlags[local >> 6] & (1L << local)) != 0 ? FLAGGED : COVERED);
+        }
+        return mine ? MINE_BIT : countAdjacentMines(row, col);
+    }
+
+    private int countAdjacentMines(int row, int col) {
+        int count = 0;
+        for (int i = -1; i <= 1; i++) {
+            for (int j = -1; j <= 1; j++) {
+                if (isMine(row + i, col + j)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private boolean isExplored(int row, int col) {
+        long key = chunkKey(row >> CHUNK_SHIFT, col >> CHUNK_SHIFT);
+        return activeChunks.containsKey(key) || settledChunks.containsKey(key);
+    }
+
+    public boolean revealCell(int row, int col) {
+        if (gameOver) {
+            return false;
+        }
+
+        int cell = cellAt(row, col);
+
+        // Cannot reveal flagged cells
+        if ((cell & STATE_MASK) == FLAGGED) {
+            return false;
+        }
+
+        if ((cell & STATE_MASK) == COVERED) {
+            uncover(row, col);
+
+            // Check if mine was hit; every explored mine is shown from now on
+            if ((cell & MINE_BIT) != 0) {
+                gameOver = true;
+                return true; // Signal that game is lost
+            }
+        }
+
+        // Expand from an empty square, including one left at the edge of an earlier capped reveal
+        if ((cell & ADJACENT_MASK) == 0) {
+            revealAdjacentCells(row, col);
+        }
+
+        settleTouchedChunks();
+        return false; // Game continues
+    }
+
+    private void uncover(int row, int col) {
+        Chunk chunk = activeChunk(row, col);
+        int local = localIndex(row, col);
+        chunk.cells[local] = (byte) ((chunk.cells[local] & ~STATE_MASK) | UNCOVERED);
+        chunk.uncovered++;
+        uncoveredCells++;
+    }
+
+    private void revealAdjacentCells(int row, int col) {
+        int size = 0;
+        int opened = 0;
+        revealWorklist[size++] = pack(row, col);
+
+        while (size > 0 && opened < MAX_REVEAL_CELLS) {
+            long packed = revealWorklist[--size];
+            int cellRow = (int) (packed >> 32);
+            int cellCol = (int) packed;
+
+            for (int i = -1; i <= 1; i++) {
+                for (int j = -1; j <= 1; j++) {
+                    int newRow = cellRow + i;
+                    int newCol = cellCol + j;
+                    int cell = cellAt(newRow, newCol);
+                    // Covered state and no mine bit
+                    if ((cell & (STATE_MASK | MINE_BIT)) == COVERED) {
+                        uncover(newRow, newCol);
+                        opened++;
+
+                        if ((cell & ADJACENT_MASK) == 0) {
+                            if (size == revealWorklist.length) {
+                                long[] grown = new long[size * 2];
+                                System.arraycopy(revealWorklist, 0, grown, 0, size);
+                                revealWorklist = grown;
+                            }
+                            revealWorklist[size++] = pack(newRow, newCol);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static long pack(int row, int col) {
+        return ((long) row << 32) | (col & 0xFFFFFFFFL);
+    }
+
+    public void toggleFlag(int row, int col) {
+        if (gameOver) {
+            return;
+        }
+
+        long key = chunkKey(row >> CHUNK_SHIFT, col >> CHUNK_SHIFT);
+        int local = localIndex(row, col);
+        long[] settledFlags = settledChunks.get(key);
+        if (settledFlags != null) {
+            // Only mines are still covered in a settled chunk
+            if (isMine(row, col)) {
+                settledFlags[local >> 6] ^= 1L << local;
+            }
+            return;
+        }
+
+        Chunk chunk = activeChunk(row, col);
+        int cell = chunk.cells[local];
+
+        // Can only flag/unflag covered cells
+        if ((cell & STATE_MASK) == COVERED) {
+            chunk.cells[local] = (byte) ((cell & ~STATE_MASK) | FLAGGED);
+            chunk.flagged++;
+        } else if ((cell & STATE_MASK) == FLAGGED) {
+            chunk.cells[local] = (byte) ((cell & ~STATE_MASK) | COVERED);
+            chunk.flagged--;
+        }
+        settleTouchedChunks();
+    }
+
+    /*
+     drops chunks that went back to untouched, since they regenerate identically,
+     and shrinks chunks whose safe squares are all open to their flag bitmap
+     */
+    private void settleTouchedChunks() {
+        for (int k = 0; k < touchedChunks.size(); k++) {
+            Chunk chunk = touchedChunks.get(k);
+            chunk.touched = false;
+            if (chunk.uncovered == 0 && chunk.flagged == 0) {
+                activeChunks.remove(chunk.key);
+            } else if (chunk.uncovered == chunk.safeCells) {
+                long[] flags = new long[CHUNK_CELLS / 64];
+                for (int local = 0; local < CHUNK_CELLS; local++) {
+                    if ((chunk.cells[local] & STATE_MASK) == FLAGGED) {
+                        flags[local >> 6] |= 1L << local;
+                    }
+                }
+                activeChunks.remove(chunk.key);
+                settledChunks.put(chunk.key, flags);
+            }
+        }
+        touchedChunks.clear();
+        lastChunk = null;
+    }
+
+    public GameBoard.CellState getState(int row, int col) {
+        int cell = cellAt(row, col);
+        // Once the game is lost every mine in the explored area is shown
+        if (gameOver && (cell & MINE_BIT) != 0 && isExplored(row, col)) {
+            return GameBoard.CellState.UNCOVERED;
+        }
+        return STATES[(cell & STATE_MASK) >> STATE_SHIFT];
+    }
+
+    public int getAdjacentMines(int row, int col) {
+        return cellAt(row, col) & ADJACENT_MASK;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getUncoveredCells() {
+        return uncoveredCells;
+    }
+
+    public int getActiveChunkCount() {
+        return activeChunks.size();
+    }
+
+    public int getSettledChunkCount() {
+        return settledChunks.size();
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.minesweeper;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ a board many players can play at once, from any number of threads, without locks.
+
+ The mine layout is copied from a GameBoard and never changes. Each square's state lives in an
+ AtomicIntegerArray, and every move claims a square with compareAndSet, so exactly one thread
+ wins each square: only the winner counts it, and only the winner floods on from a 0. A
+ concurrent flood therefore never opens or counts a square twice, whichever threads it meets.
+
+ Totals: uncovered and flagged squares are LongAdders, cheap to bump from many threads. Safe
+ squares still covered are an AtomicInteger, updated once per move. The move that takes that
+ counter to 0 wins. Status moves from PLAYING to WON or LOST by one compareAndSet, so the first
+ mine hit ends the game for everyone. Moves that start after that change nothing, and floods
+ that are running stop at their next square.
+
+ As in GameBoard, the end of the game uncovers every mine, flagged ones included, and counts
+ them in getUncoveredCells(). The thread whose move ended the game does it, claiming each mine
+ like any other square, so a move that was already under way and reaches a mine first counts
+ it instead; the mines go into that thread's changes.
+ */
+public class ConcurrentGameBoard {
+
+    private static final int COVERED = 0;
+    private static final int UNCOVERED = 1;
+    private static final int FLAGGED = 2;
+    private static final GameBoard.CellState[] STATES = {
+            GameBoard.CellState.COVERED, GameBoard.CellState.UNCOVERED, GameBoard.CellState.FLAGGED};
+
+    private static final byte MINE = -1;
+
+    private static final int PLAYING = 0;
+    private static final int WON = 1;
+    private static final int LOST = 2;
+
+    private final int rows;
+    private final int columns;
+    private final int totalMines;
+    // Adjacent mine count per square, or MINE for a mine; never written after construction
+    private final byte[] layout;
+    private final int[] mineIndices;
+    private final AtomicIntegerArray states;
+    private final LongAdder uncoveredCells = new LongAdder();
+    private final LongAdder flaggedCells = new LongAdder();
+    private final AtomicInteger safeCellsCovered;
+    private final AtomicInteger status = new AtomicInteger(PLAYING);
+    // Square of the mine that ended the game, -1 before that
+    private volatile int losingIndex = -1;
+
+    // Copies the mines of a board that has already placed them; its play state is ignored
+    public ConcurrentGameBoard(GameBoard source) {
+        if (!source.areMinesPlaced()) {
+            throw new IllegalArgumentException("Mines are not placed yet");
+        }
+        this.rows = source.getRows();
+        this.columns = source.getColumns();
+        this.totalMines = source.getTotalMines();
+        this.layout = new byte[rows * columns];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                layout[i * columns + j] = source.isMine(i, j) ? MINE : (byte) source.getAdjacentMines(i, j);
+            }
+        }
+        this.mineIndices = source.getMineIndices();
+        this.states = new AtomicIntegerArray(rows * columns);
+        this.safeCellsCovered = new AtomicInteger(rows * columns - totalMines);
+    }
+
+    public ConcurrentGameBoard(int rows, int columns, int minesPercent, long seed) {
+        this(new GameBoard(rows, columns, minesPercent, seed, false, GameBoard.AdjacencyStrategy.AUTO));
+    }
+
+    /*
+     uncovers the square, flooding on from a 0, and returns true if it was a mine. changes, if
+     not null, is cleared and then gets the squares this call uncovered
+     */
+    public boolean revealCell(int row, int col, CellChangeSet changes) {
+        if (changes != null) {
+            changes.clear();
+        }
+        if (status.get() != PLAYING) {
+            return false;
+        }
+        return claim(row * columns + col, changes);
+    }
+
+    /*
+     on an uncovered number whose flagged neighbours match it, uncovers all its other covered
+     neighbours; returns true if one of them was a mine
+     */
+    public boolean chord(int row, int col, CellChangeSet changes) {
+        if (changes != null) {
+            changes.clear();
+        }
+        int index = row * columns + col;
+        if (status.get() != PLAYING || states.get(index) != UNCOVERED || layout[index] <= 0) {
+            return false;
+        }
+        int flags = 0;
+        for (int i = -1; i <= 1; i++) {
+            for (int j = -1; j <= 1; j++) {
+                if (isValidPosition(row + i, col + j) && states.get((row + i) * columns + col + j) == FLAGGED) {
+                    flags++;
+                }
+            }
+        }
+        if (flags != layout[index]) {
+            return false;
+        }
+        boolean hitMine = false;
+        for (int i = -1; i <= 1; i++) {
+            for (int j = -1; j <= 1; j++) {
+                if (isValidPosition(row + i, col + j)) {
+                    hitMine |= claim((row + i) * columns + col + j, changes);
+                }
+            }
+        }
+        return hitMine;
+    }
+
+    // Flags a covered square or unflags a flagged one; returns false if the square was uncovered
+    public boolean toggleFlag(int row, int col) {
+        if (status.get() != PLAYING) {
+            return false;
+        }
+        int index = row * columns + col;
+        while (true) {
+            int state = states.get(index);
+            if (state == UNCOVERED) {
+                return false;
+            }
+            int next = state == COVERED ? FLAGGED : COVERED;
+            if (states.compareAndSet(index, state, next)) {
+                if (next == FLAGGED) {
+                    flaggedCells.increment();
+                } else {
+                    flaggedCells.decrement();
+                }
+                return true;
+            }
+        }
+    }
+
+    // Uncovers one covered square if this thread wins it, then floods on from it if it is a 0
+    private boolean claim(int index, CellChangeSet changes) {
+        if (!states.compareAndSet(index, COVERED, UNCOVERED)) {
+            // Flagged, or another thread got there first and counts it
+            return false;
+        }
+        uncoveredCells.increment();
+        if (changes != null) {
+            changes.add(index);
+        }
+        if (layout[index] == MINE) {
+            if (status.compareAndSet(PLAYING, LOST)) {
+                losingIndex = index;
+                revealAllMines(changes);
+            }
+            return true;
+        }
+        int opened = 1;
+        if (layout[index] == 0) {
+            opened += flood(index, changes);
+        }
+        if (safeCellsCovered.addAndGet(-opened) == 0 && status.compareAndSet(PLAYING, WON)) {
+            revealAllMines(changes);
+        }
+        return false;
+    }
+
+    // Uncovers the mines still covered or flagged; only the thread that ended the game calls it
+    private void revealAllMines(CellChangeSet changes) {
+        int shown = 0;
+        for (int m = 0; m < mineIndices.length; m++) {
+            int index = mineIndices[m];
+            while (true) {
+                int state = states.get(index);
+                if (state == UNCOVERED) {
+                    break;
+                }
+                // A late toggleFlag may still flip the square, so claim it from the state seen
+                if (states.compareAndSet(index, state, UNCOVERED)) {
+                    shown++;
+                    if (state == FLAGGED) {
+                        flaggedCells.decrement();
+                    }
+                    if (changes != null) {
+                        changes.add(index);
+                    }
+                    break;
+                }
+            }
+        }
+        uncoveredCells.add(shown);
+    }
+
+    // Returns how many squares this thread uncovered around the 0 at start, not counting start
+    private int flood(int start, CellChangeSet changes) {
+        int[] worklist = new int[16];
+        int size = 0;
+        int opened = 0;
+        worklist[size++] = start;
+        while (size > 0 && status.get() == PLAYING) {
+            int index = worklist[--size];
+            int row = index / columns;
+            int col = index % columns;
+            for (int i = -1; i <= 1; i++) {
+                for (int j = -1; j <= 1; j++) {
+                    int newRow = row + i;
+                    int newCol = col + j;
+                    if (!isValidPosition(newRow, newCol)) {
+                        continue;
+                    }
+                    int newIndex = newRow * columns + newCol;
+                    // A 0 has no mine around it, so every neighbour it claims is safe
+                    if (states.get(newIndex) == COVERED && states.compareAndSet(newIndex, COVERED, UNCOVERED)) {
+                        opened++;
+                        if (changes != null) {
+                            changes.add(newIndex);
+                        }
+                        if (layout[newIndex] == 0) {
+                            if (size == worklist.length) {
+                                int[] grown = new int[size * 2];
+                                System.arraycopy(worklist, 0, grown, 0, size);
+                                worklist = grown;
+                            }
+                            worklist[size++] = newIndex;
+                        }
+                    }
+                }
+            }
+        }
+        uncoveredCells.add(opened);
+        return opened;
+    }
+
+    private boolean isValidPosition(int row, int col) {
+        return row >= 0 && row < rows && col >= 0 && col < columns;
+    }
+
+    public GameBoard.CellState getState(int row, int col) {
+        return STATES[states.get(row * columns + col)];
+    }
+
+    public boolean isMine(int row, int col) {
+        return layout[row * columns + col] == MINE;
+    }
+
+    public int getAdjacentMines(int row, int col) {
+        return Math.max(0, layout[row * columns + col]);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getTotalMines() {
+        return totalMines;
+    }
+
+    public int getUncoveredCells() {
+        return (int) uncoveredCells.sum();
+    }
+
+    public int getFlagCount() {
+        return (int) flaggedCells.sum();
+    }
+
+    public int getSafeCellsCovered() {
+        return safeCellsCovered.get();
+    }
+
+    public int getLosingIndex() {
+        return losingIndex;
+    }
+
+    public boolean isGameOver() {
+        return status.get() == LOST;
+    }
+
+    public boolean isGameWon() {
+        return status.get() == WON;
+    }
+
+    public boolean isGameFinished() {
+        return status.get() != PLAYING;
+    }
+}
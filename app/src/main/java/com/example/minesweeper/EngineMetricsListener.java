@@ -0,0 +1,38 @@
+package com.example.minesweeper;
+
+/*
+ receives counters and phase timings from a GameBoard. Calls come on the thread that uses the
+ board, once per phase or per flood reveal, never per square. A board with NO_OP, the default,
+ skips the clock reads altogether, so leaving metrics off costs nothing on the move paths.
+ */
+public interface EngineMetricsListener {
+
+    EngineMetricsListener NO_OP = new EngineMetricsListener() {
+        @Override
+        public void onBoardInitialized(int cells, long nanos) {
+        }
+
+        @Override
+        public void onMinesPlaced(int mines, int collisions, long nanos) {
+        }
+
+        @Override
+        public void onAdjacencyCalculated(GameBoard.AdjacencyStrategy strategy, long nanos) {
+        }
+
+        @Override
+        public void onFloodReveal(int cellsOpened, int neighbourProbes) {
+        }
+    };
+
+    // Cell arrays allocated by the constructor or cleared by reset()
+    void onBoardInitialized(int cells, long nanos);
+
+    // collisions: sampling draws that hit a square already holding a mine and took the fallback square
+    void onMinesPlaced(int mines, int collisions, long nanos);
+
+    void onAdjacencyCalculated(GameBoard.AdjacencyStrategy strategy, long nanos);
+
+    // A tap on a 0 and the flood it opened, counting the tapped square; probes are neighbour reads
+    void onFloodReveal(int cellsOpened, int neighbourProbes);
+}
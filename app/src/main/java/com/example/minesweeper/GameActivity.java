@@ -1,39 +1,74 @@
 package com.example.minesweeper;
 
 import android.content.Intent;
-import android.graphics.Color;
-import android.graphics.drawable.GradientDrawable;
 import android.os.Bundle;
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.content.ContextCompat;
-import android.view.Gravity;
 import android.view.View;
 import android.widget.Button;
-import android.widget.FrameLayout;
-import android.widget.ImageView;
-import android.widget.LinearLayout;
+import android.widget.ProgressBar;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
 /*
     board screen, allows for a single click to reveal a cell or a long click to mark with a flag:
  */
 public class GameActivity extends AppCompatActivity {
 
+    private static final String KEY_SNAPSHOT = "board_snapshot";
+    private static final String KEY_SNAPSHOT_IN_FILE = "board_snapshot_in_file";
+    private static final String SNAPSHOT_FILE = "board_snapshot.bin";
+    private static final String MOVE_LOG_PREFIX = "move_log";
+    private static final String LATENCY_FILE = "latency.txt";
+    // The saved Bundle crosses a Binder transaction capped at 1MB for the whole process,
+    // so bigger snapshots go to a cache file and only a marker goes in the Bundle
+    private static final int MAX_BUNDLE_SNAPSHOT_BYTES = 64 * 1024;
+    private static final int BOARD_POOL_SIZE = 2;
+    private static final int BASE_CELL_SIZE = 80;
+
+    // Boards for the current settings built ahead of time, kept across game screens so that
+    // starting or restarting a game never builds one on the main thread
+    private static BoardPool boardPool;
+    private static GameSettings.OnChangeListener settingsListener;
+    // Work that should not run on the main thread, such as placing the mines or writing metrics
+    private static final ExecutorService worker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "game-worker");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
     private GameBoard gameBoard;
-    private FrameLayout[][] cellContainers;
-    private TextView[][] cellViews;
-    private ImageView[][] cellImages;
-    private LinearLayout gameBoardLayout;
+    private MoveJournal journal;
+    private BoardView boardView;
+    private ProgressBar boardPlaceholder;
     private Button restartButton;
     private Button backButton;
+    private Button undoButton;
+    private TextView minesRemainingText;
     private int coveredColorResId;
     private int uncoveredColorResId;
     private int suspectedColorResId;
     private int mineColorResId;
+    private CellRenderCache renderCache;
+    private final GameScreenMetrics metrics = new GameScreenMetrics();
     private int rows;
     private int columns;
     private int minesPercent;
+    // Set while the worker places the mines for the first tap; the board is not touched meanwhile
+    private boolean placingMines;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -41,19 +76,41 @@ public class GameActivity extends AppCompatActivity {
         setContentView(R.layout.activity_game);
 
         // Load settings
-        rows = SettingsActivity.getRows(this);
-        columns = SettingsActivity.getColumns(this);
-        minesPercent = SettingsActivity.getMinesPercent(this);
+        GameSettings settings = GameSettings.get(this);
+        rows = settings.rows;
+        columns = settings.columns;
+        minesPercent = settings.minesPercent;
 
         // Load color resources
-        loadColorResources();
+        loadColorResources(settings);
+
+        minesRemainingText = findViewById(R.id.minesRemainingText);
+        boardView = findViewById(R.id.boardView);
+        boardView.setMetrics(metrics);
+        boardPlaceholder = findViewById(R.id.boardPlaceholder);
 
         // Setup restart button
         restartButton = findViewById(R.id.restartButton);
         restartButton.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                restartGame();
+                if (!placingMines) {
+                    restartGame();
+                }
+            }
+        });
+
+        // Setup undo button
+        undoButton = findViewById(R.id.undoButton);
+        undoButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                if (journal != null && journal.canUndo() && !placingMines) {
+                    journal.undo();
+                    boardView.onCellsChanged(gameBoard.getLastChanges());
+                    updateMinesRemaining();
+                    restartButton.setVisibility(gameBoard.isGameFinished() ? View.VISIBLE : View.GONE);
+                }
             }
         });
 
@@ -70,20 +127,142 @@ public class GameActivity extends AppCompatActivity {
             }
         });
 
-        // Create initial game board
-        startNewGame();
+        // Continue the game in progress after rotation or process death, otherwise start a new one
+        if (savedInstanceState == null || !restoreGame(savedInstanceState)) {
+            startNewGame();
+        }
+    }
+
+    @Override
+    protected void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        if (gameBoard == null || placingMines) {
+            // Still waiting for a board or its mines, the new screen will start its own game
+            return;
+        }
+        byte[] snapshot = gameBoard.toSnapshot();
+        if (snapshot.length <= MAX_BUNDLE_SNAPSHOT_BYTES) {
+            outState.putByteArray(KEY_SNAPSHOT, snapshot);
+        } else if (writeSnapshotFile(snapshot)) {
+            outState.putBoolean(KEY_SNAPSHOT_IN_FILE, true);
+        }
+    }
+
+    private boolean restoreGame(Bundle savedInstanceState) {
+        byte[] snapshot = savedInstanceState.getByteArray(KEY_SNAPSHOT);
+        if (snapshot == null && savedInstanceState.getBoolean(KEY_SNAPSHOT_IN_FILE)) {
+            snapshot = readSnapshotFile();
+        }
+        if (snapshot == null) {
+            return false;
+        }
+        try {
+            gameBoard = GameBoard.fromSnapshot(snapshot);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        // Undo history is not part of the snapshot, it starts again from the restored position
+        startJournal();
+
+        setupGameBoard();
+        restartButton.setVisibility(gameBoard.isGameFinished() ? View.VISIBLE : View.GONE);
+        return true;
+    }
+
+    private void startJournal() {
+        if (journal != null) {
+            journal.close();
+        }
+        journal = new MoveJournal(gameBoard, createMoveLogFile());
+    }
+
+    // A file of its own for each journal: after a rotation the new screen starts its journal
+    // before the old screen closes its one
+    private File createMoveLogFile() {
+        try {
+            return File.createTempFile(MOVE_LOG_PREFIX, ".bin", getCacheDir());
+        } catch (IOException e) {
+            // The log then stays on the heap however long it gets
+            return null;
+        }
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        // Report the timings of this visit to the screen
+        metrics.stop();
+        metrics.dump(new File(getFilesDir(), LATENCY_FILE), rows, columns, worker);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    private boolean writeSnapshotFile(byte[] snapshot) {
+        try (FileOutputStream out = new FileOutputStream(new File(getCacheDir(), SNAPSHOT_FILE))) {
+            out.write(snapshot);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private byte[] readSnapshotFile() {
+        File file = new File(getCacheDir(), SNAPSHOT_FILE);
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            byte[] snapshot = new byte[(int) file.length()];
+            in.readFully(snapshot);
+            return snapshot;
+        } catch (IOException e) {
+            // The system may have cleared the cache while the process was gone
+            return null;
+        }
     }
 
     private void startNewGame() {
-        // Create game board
-        gameBoard = new GameBoard(rows, columns, minesPercent);
+        // Take a board built in the background, mines are placed on the first tap so it never hits one
+        GameBoard board = getBoardPool().take(new BoardPool.Callback() {
+            @Override
+            public void onBoardReady(GameBoard board) {
+                if (isDestroyed()) {
+                    boardPool.recycle(board);
+                    return;
+                }
+                showBoard(board);
+            }
+        });
+        if (board != null) {
+            showBoard(board);
+        } else {
+            // Nothing ready yet, show the placeholder until the pool delivers one
+            boardView.setVisibility(View.INVISIBLE);
+            boardPlaceholder.setVisibility(View.VISIBLE);
+            restartButton.setVisibility(View.GONE);
+        }
+    }
+
+    private void showBoard(GameBoard board) {
+        GameBoard previous = gameBoard;
+        gameBoard = board;
+        startJournal();
 
         // Setup UI
-        gameBoardLayout = findViewById(R.id.gameBoardLayout);
+        boardPlaceholder.setVisibility(View.GONE);
+        boardView.setVisibility(View.VISIBLE);
         setupGameBoard();
 
         // Hide restart button initially
         restartButton.setVisibility(View.GONE);
+
+        // The old board is no longer drawn or journalled, reset it in the background for a later game
+        if (previous != null) {
+            boardPool.recycle(previous);
+        }
     }
 
     private void restartGame() {
@@ -91,174 +270,133 @@ public class GameActivity extends AppCompatActivity {
         startNewGame();
     }
 
-    private void loadColorResources() {
-        int coveredIndex = SettingsActivity.getCoveredColorIndex(this);
-        int uncoveredIndex = SettingsActivity.getUncoveredColorIndex(this);
-        int suspectedIndex = SettingsActivity.getSuspectedColorIndex(this);
-        int mineIndex = SettingsActivity.getMineColorIndex(this);
-
-        coveredColorResId = getColorResourceId("covered_color", coveredIndex, R.color.covered_color_1);
-        uncoveredColorResId = getColorResourceId("uncovered_color", uncoveredIndex, R.color.uncovered_color_1);
-        suspectedColorResId = getColorResourceId("suspected_color", suspectedIndex, R.color.suspected_color_1);
-        mineColorResId = getColorResourceId("mine_color", mineIndex, R.color.mine_color_1);
-    }
-
-    private int getColorResourceId(String colorType, int index, int defaultResId) {
-        String resourceName = colorType + "_" + index;
-        int resId = getResources().getIdentifier(resourceName, "color", getPackageName());
-        // If resource not found, return default
-        if (resId == 0) {
-            return defaultResId;
+    private BoardPool getBoardPool() {
+        if (boardPool != null && !boardPool.matches(rows, columns, minesPercent)) {
+            boardPool.cancel();
+            boardPool = null;
         }
-        return resId;
+        if (boardPool == null) {
+            boardPool = new BoardPool(rows, columns, minesPercent, BOARD_POOL_SIZE,
+                    ContextCompat.getMainExecutor(getApplicationContext()));
+        }
+        if (settingsListener == null) {
+            settingsListener = new PoolSettingsListener();
+            GameSettings.addOnChangeListener(settingsListener);
+        }
+        return boardPool;
     }
 
-    private void setupGameBoard() {
-        int rows = gameBoard.getRows();
-        int columns = gameBoard.getColumns();
-        cellViews = new TextView[rows][columns];
-        cellImages = new ImageView[rows][columns];
-        cellContainers = new FrameLayout[rows][columns];
-
-        // Calculate cell size based on screen
-        int screenWidth = getResources().getDisplayMetrics().widthPixels;
-        int cellSize = Math.min((screenWidth - 32) / columns, 80); // Max 80dp per cell
-
-        gameBoardLayout.removeAllViews();
-
-        for (int i = 0; i < rows; i++) {
-            LinearLayout rowLayout = new LinearLayout(this);
-            rowLayout.setOrientation(LinearLayout.HORIZONTAL);
-            rowLayout.setGravity(Gravity.CENTER);
-
-            for (int j = 0; j < columns; j++) {
-                FrameLayout container = createCellContainer(i, j, cellSize);
-                rowLayout.addView(container);
-                cellContainers[i][j] = container;
+    /*
+     stays registered for the life of the process, so it is a static class that holds no screen
+     and only touches the static pool: boards built for an old size or density are of no use
+     */
+    private static final class PoolSettingsListener implements GameSettings.OnChangeListener {
+        @Override
+        public void onSettingsChanged(GameSettings settings) {
+            if (boardPool != null && !boardPool.matches(settings.rows, settings.columns, settings.minesPercent)) {
+                boardPool.cancel();
+                boardPool = null;
             }
-
-            gameBoardLayout.addView(rowLayout);
         }
+    }
 
-        updateBoardDisplay();
+    private void loadColorResources(GameSettings settings) {
+        coveredColorResId = settings.getCoveredColorResId();
+        uncoveredColorResId = settings.getUncoveredColorResId();
+        suspectedColorResId = settings.getSuspectedColorResId();
+        mineColorResId = settings.getMineColorResId();
+
+        renderCache = new CellRenderCache(this, coveredColorResId, uncoveredColorResId,
+                suspectedColorResId, mineColorResId);
     }
 
-    private FrameLayout createCellContainer(final int row, final int col, int size) {
-        // Create container
-        FrameLayout container = new FrameLayout(this);
-        FrameLayout.LayoutParams containerParams = new FrameLayout.LayoutParams(size, size);
-        containerParams.setMargins(2, 2, 2, 2);
-        container.setLayoutParams(containerParams);
-        
-        // Create TextView for background and text
-        TextView cellView = new TextView(this);
-        FrameLayout.LayoutParams textParams = new FrameLayout.LayoutParams(
-            FrameLayout.LayoutParams.MATCH_PARENT,
-            FrameLayout.LayoutParams.MATCH_PARENT
-        );
-        cellView.setLayoutParams(textParams);
-        cellView.setGravity(Gravity.CENTER);
-        cellView.setTextSize(16);
-        cellView.setTextColor(Color.BLACK);
-        setCellBackground(cellView, getColorResource(coveredColorResId));
-        
-        // Create ImageView for flag/bomb images
-        ImageView imageView = new ImageView(this);
-        int imageSize = (int) (size * 0.85); // 85% of cell size for bigger images
-        FrameLayout.LayoutParams imageParams = new FrameLayout.LayoutParams(imageSize, imageSize);
-        imageParams.gravity = Gravity.CENTER;
-        imageView.setLayoutParams(imageParams);
-        imageView.setScaleType(ImageView.ScaleType.FIT_CENTER);
-        imageView.setVisibility(View.GONE); // Hidden by default
-        
-        container.addView(cellView);
-        container.addView(imageView);
-        
-        cellViews[row][col] = cellView;
-        cellImages[row][col] = imageView;
-
-        // Tap listener - reveal cell
-        container.setOnClickListener(new View.OnClickListener() {
+    private void setupGameBoard() {
+        // Cells are drawn at this size when zoomed to 1; the view zooms out to fit the board
+        // or, on big boards, as far as it can and lets the player pan and pinch
+        boardView.setRenderCache(renderCache);
+        boardView.setBoard(gameBoard, BASE_CELL_SIZE);
+        updateMinesRemaining();
+
+        boardView.setOnCellClickListener(new BoardView.OnCellClickListener() {
+            // Tap - reveal cell, or chord when tapping a number that is already uncovered
             @Override
-            public void onClick(View v) {
-                if (!gameBoard.isGameFinished()) {
-                    boolean gameLost = gameBoard.revealCell(row, col);
-                    updateBoardDisplay();
-                    
-                    if (gameLost) {
-                        showToast(getString(R.string.game_lose));
-                        // Show restart button when game is lost
-                        restartButton.setVisibility(View.VISIBLE);
-                    } else {
-                        checkGameStatus();
-                    }
-                }
+            public void onCellClick(int row, int col) {
+                tapCell(row, col);
             }
-        });
 
-        // Long press listener for flag
-        container.setOnLongClickListener(new View.OnLongClickListener() {
+            // Long press - flag
             @Override
-            public boolean onLongClick(View v) {
-                if (!gameBoard.isGameFinished()) {
-                    gameBoard.toggleFlag(row, col);
-                    updateBoardDisplay();
+            public boolean onCellLongClick(int row, int col) {
+                if (!gameBoard.isGameFinished() && !placingMines) {
+                    metrics.onTapStart();
+                    metrics.onEngineStart();
+                    journal.toggleFlag(row, col);
+                    metrics.onEngineEnd();
+                    boardView.onCellsChanged(gameBoard.getLastChanges());
+                    updateMinesRemaining();
+                    metrics.onTapEnd(boardView.isDirty());
                     return true;
                 }
                 return false;
             }
         });
+    }
+
+    private void tapCell(int row, int col) {
+        if (gameBoard.isGameFinished() || placingMines) {
+            return;
+        }
+        // Timed from here even when the mines are placed first, so the first tap counts in full
+        metrics.onTapStart();
+        metrics.onEngineStart();
+        if (!gameBoard.areMinesPlaced() && gameBoard.getState(row, col) == GameBoard.CellState.COVERED) {
+            placeMinesThenTap(row, col);
+            return;
+        }
+        playTap(row, col);
+    }
 
-        return container;
+    // The move of a tap whose timing tapCell has started
+    private void playTap(int row, int col) {
+        boolean gameLost = gameBoard.getState(row, col) == GameBoard.CellState.UNCOVERED
+                ? journal.chord(row, col) : journal.revealCell(row, col);
+        metrics.onEngineEnd();
+        boardView.onCellsChanged(gameBoard.getLastChanges());
+        updateMinesRemaining();
+
+        if (gameLost) {
+            showToast(getString(R.string.game_lose));
+            // Show restart button when game is lost
+            restartButton.setVisibility(View.VISIBLE);
+        } else {
+            checkGameStatus();
+        }
+        metrics.onTapEnd(boardView.isDirty());
     }
 
-    private void updateBoardDisplay() {
-        int rows = gameBoard.getRows();
-        int columns = gameBoard.getColumns();
-
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < columns; j++) {
-                GameBoard.Cell cell = gameBoard.getCell(i, j);
-                TextView cellView = cellViews[i][j];
-                ImageView imageView = cellImages[i][j];
-
-                if (cell.state == GameBoard.CellState.COVERED) {
-                    setCellBackground(cellView, getColorResource(coveredColorResId));
-                    cellView.setText("");
-                    imageView.setVisibility(View.GONE);
-                } else if (cell.state == GameBoard.CellState.FLAGGED) {
-                    setCellBackground(cellView, getColorResource(suspectedColorResId));
-                    cellView.setText("");
-                    // Show flag image - centered and scaled
-                    imageView.setImageResource(R.drawable.flag);
-                    imageView.setVisibility(View.VISIBLE);
-                } else if (cell.state == GameBoard.CellState.UNCOVERED) {
-                    if (cell.isMine) {
-                        setCellBackground(cellView, getColorResource(mineColorResId));
-                        cellView.setText("");
-                        // Show bomb image - centered and scaled
-                        imageView.setImageResource(R.drawable.bomba);
-                        imageView.setVisibility(View.VISIBLE);
-                    } else {
-                        setCellBackground(cellView, getColorResource(uncoveredColorResId));
-                        imageView.setVisibility(View.GONE);
-                        if (cell.adjacentMines > 0) {
-                            cellView.setText(String.valueOf(cell.adjacentMines));
-                        } else {
-                            cellView.setText("");
+    // Places the mines on the worker, then makes the tap; other input waits until then
+    private void placeMinesThenTap(final int row, final int col) {
+        placingMines = true;
+        final GameBoard board = gameBoard;
+        worker.execute(new Runnable() {
+            @Override
+            public void run() {
+                board.placeMinesAround(row, col);
+                ContextCompat.getMainExecutor(getApplicationContext()).execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        placingMines = false;
+                        if (!isDestroyed() && board == gameBoard) {
+                            playTap(row, col);
                         }
                     }
-                }
+                });
             }
-        }
+        });
     }
 
-    private void setCellBackground(TextView cellView, int color) {
-        GradientDrawable drawable = new GradientDrawable();
-        drawable.setShape(GradientDrawable.RECTANGLE);
-        drawable.setColor(color);
-        drawable.setCornerRadius(8f); // Rounded corners with 8dp radius
-        cellView.setBackground(drawable);
+    private void updateMinesRemaining() {
+        minesRemainingText.setText(getString(R.string.mines_remaining, gameBoard.getMinesRemaining()));
     }
 
     private void checkGameStatus() {
@@ -272,10 +410,4 @@ public class GameActivity extends AppCompatActivity {
     private void showToast(String message) {
         Toast.makeText(this, message, Toast.LENGTH_LONG).show();
     }
-
-    private int getColorResource(int colorResId) {
-        return ContextCompat.getColor(this, colorResId);
-    }
-    
 }
-
@@ -1,8 +1,11 @@
 package com.example.minesweeper;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /*
  game logic for Minesweeper
@@ -15,6 +18,17 @@ public class GameBoard {
         FLAGGED         // Cell is flagged as suspected mine
     }
 
+    public enum AdjacencyStrategy {
+        SCAN,           // Count the 8 neighbours of every square
+        BITBOARD,       // Keep mines as long[] bit rows and count 64 squares at a time
+        MINE_DRIVEN,    // Walk the mine list and increment each mine's neighbours
+        PARALLEL,       // Bitboard counting split into row bands across the fork/join pool
+        AUTO            // Pick one of the above from board size and mine density
+    }
+
+    /*
+     read-only copy of a single square, built on demand by getCell()
+     */
     public static class Cell {
         boolean isMine;
         int adjacentMines;
@@ -27,56 +41,346 @@ public class GameBoard {
         }
     }
 
-    private Cell[][] board;
+    // Each square is packed into one byte of a flat array indexed by row * columns + col:
+    // bits 0-3 hold the adjacent mine count, bits 4-5 the CellState ordinal, bit 6 the mine flag
+    private static final int ADJACENT_MASK = 0x0F;
+    private static final int STATE_SHIFT = 4;
+    private static final int STATE_MASK = 0x03 << STATE_SHIFT;
+    static final int MINE_BIT = 0x40;
+    private static final int COVERED = CellState.COVERED.ordinal() << STATE_SHIFT;
+    static final int UNCOVERED = CellState.UNCOVERED.ordinal() << STATE_SHIFT;
+    static final int FLAGGED = CellState.FLAGGED.ordinal() << STATE_SHIFT;
+    // Bit 7 marks squares while collectStops() or undoMove() walks a move; clear between calls
+    private static final int MARK_BIT = 0x80;
+    private static final CellState[] STATES = CellState.values();
+
+    // AUTO goes parallel from this many squares, and mine-driven below 1 mine per this many squares
+    private static final int PARALLEL_MIN_CELLS = 1 << 20;
+    private static final int MINE_DRIVEN_CELLS_PER_MINE = 16;
+    // Squares per fork/join leaf, so a band covers whole rows of roughly this size
+    private static final int PARALLEL_BAND_CELLS = 1 << 16;
+    // Ints of flood span stack a board keeps between taps, 4 KB
+    private static final int FLOOD_STACK_KEPT = 1024;
+
+    private byte[] cells;
+    // Flagged neighbours of every square, kept up to date by toggleFlag so chord() need not look
+    private byte[] adjacentFlags;
     private int rows;
     private int columns;
+    private int minesPercent;
     private int totalMines;
+    // Squares in each state, kept by every move so the status getters are O(1)
     private int uncoveredCells;
+    private int flaggedCells;
     private boolean gameOver;
     private boolean gameWon;
+    private long seed;
+    // When set, mines are placed on the first reveal so that square and its neighbours are safe
+    private final boolean safeFirstClick;
+    private boolean minesPlaced;
+    // Square the mines were placed around, or -1; with the seed it is all it takes to rebuild them
+    private int firstTapIndex = -1;
+    // When set, the first reveal asks it for a seed whose board needs no guessing from that tap
+    private NoGuessGenerator noGuessGenerator;
+    private long noGuessTimeoutMillis;
+    private boolean noGuess;
+    // Every mine as row * columns + col, so ending a game only visits mines; in placement order,
+    // or index order on a board restored from a snapshot
+    private int[] mineIndices;
+    private final AdjacencyStrategy adjacencyStrategy;
+    // Only allocated for AdjacencyStrategy.BITBOARD and PARALLEL
+    private MineBitboard mineBitboard;
+    // Runs of 0s a flood reveal still has to spread from, as first and last index pairs.
+    // Reused between taps; a flood that needed more than FLOOD_STACK_KEPT ints drops it afterwards
+    private int[] floodSpans = new int[64];
+    private int floodSize;
+    // Squares changed by the most recent revealCell, chord or toggleFlag call
+    private final CellChangeSet changes = new CellChangeSet();
+    // Flagged mines the end of the last game uncovered, for MoveJournal to flag again on undo
+    private final CellChangeSet shownFlags = new CellChangeSet();
+    private EngineMetricsListener metrics;
 
     public GameBoard(int rows, int columns, int minesPercent) {
+        this(rows, columns, minesPercent, AdjacencyStrategy.SCAN);
+    }
+
+    public GameBoard(int rows, int columns, int minesPercent, AdjacencyStrategy adjacencyStrategy) {
+        this(rows, columns, minesPercent, new SplittableRandom().nextLong(), false, adjacencyStrategy);
+    }
+
+    public GameBoard(int rows, int columns, int minesPercent, long seed, boolean safeFirstClick) {
+        this(rows, columns, minesPercent, seed, safeFirstClick, AdjacencyStrategy.SCAN);
+    }
+
+    public GameBoard(int rows, int columns, int minesPercent, long seed, boolean safeFirstClick,
+                     AdjacencyStrategy adjacencyStrategy) {
+        this(rows, columns, minesPercent, seed, safeFirstClick, adjacencyStrategy, EngineMetricsListener.NO_OP);
+    }
+
+    // Takes the listener up front so that a board placing its mines right away reports that too
+    public GameBoard(int rows, int columns, int minesPercent, long seed, boolean safeFirstClick,
+                     AdjacencyStrategy adjacencyStrategy, EngineMetricsListener metrics) {
+        this(rows, columns, minesPercent, seed, safeFirstClick, adjacencyStrategy, metrics, !safeFirstClick);
+    }
+
+    // A board for GameSnapshot to fill in, which never places mines itself
+    static GameBoard forRestore(int rows, int columns, int minesPercent, long seed, boolean safeFirstClick,
+                                AdjacencyStrategy adjacencyStrategy) {
+        return new GameBoard(rows, columns, minesPercent, seed, safeFirstClick, adjacencyStrategy,
+                EngineMetricsListener.NO_OP, false);
+    }
+
+    private GameBoard(int rows, int columns, int minesPercent, long seed, boolean safeFirstClick,
+                      AdjacencyStrategy adjacencyStrategy, EngineMetricsListener metrics, boolean placeMines) {
+        this.metrics = metrics != null ? metrics : EngineMetricsListener.NO_OP;
+        long start = startTimer();
         this.rows = rows;
         this.columns = columns;
-        this.totalMines = (rows * columns * minesPercent) / 100;
+        this.minesPercent = minesPercent;
+        this.totalMines = (int) ((long) rows * columns * minesPercent / 100);
+        this.uncoveredCells = 0;
+        this.flaggedCells = 0;
+        this.gameOver = false;
+        this.gameWon = false;
+        this.seed = seed;
+        this.safeFirstClick = safeFirstClick;
+        this.minesPlaced = false;
+        this.cells = new byte[rows * columns];
+        this.adjacentFlags = new byte[rows * columns];
+        this.adjacencyStrategy = resolveAdjacencyStrategy(adjacencyStrategy, cells.length, totalMines);
+        if (this.adjacencyStrategy == AdjacencyStrategy.BITBOARD
+                || this.adjacencyStrategy == AdjacencyStrategy.PARALLEL) {
+            this.mineBitboard = new MineBitboard(rows, columns);
+        }
+        if (start != 0) {
+            this.metrics.onBoardInitialized(cells.length, System.nanoTime() - start);
+        }
+
+        if (placeMines) {
+            generateMines(-1, -1);
+        }
+    }
+
+    // Starts a new game with another seed on the same arrays, so long simulations do not allocate per game
+    public void reset(long seed) {
+        long start = startTimer();
+        Arrays.fill(cells, (byte) 0);
+        Arrays.fill(adjacentFlags, (byte) 0);
+        if (mineBitboard != null) {
+            mineBitboard.clear();
+        }
         this.uncoveredCells = 0;
+        this.flaggedCells = 0;
         this.gameOver = false;
         this.gameWon = false;
-        this.board = new Cell[rows][columns];
+        this.seed = seed;
+        this.minesPlaced = false;
+        this.firstTapIndex = -1;
+        this.noGuess = false;
+        changes.clear();
+        shownFlags.clear();
+        if (start != 0) {
+            metrics.onBoardInitialized(cells.length, System.nanoTime() - start);
+        }
+
+        if (!safeFirstClick) {
+            generateMines(-1, -1);
+        }
+    }
+
+    static AdjacencyStrategy resolveAdjacencyStrategy(AdjacencyStrategy requested, int cellCount, int mineCount) {
+        if (requested != AdjacencyStrategy.AUTO) {
+            return requested;
+        }
+        // Pushing from mines only touches 8 squares per mine, which beats any full pass on sparse boards
+        if ((long) mineCount * MINE_DRIVEN_CELLS_PER_MINE < cellCount) {
+            return AdjacencyStrategy.MINE_DRIVEN;
+        }
+        if (cellCount >= PARALLEL_MIN_CELLS && Runtime.getRuntime().availableProcessors() > 1) {
+            return AdjacencyStrategy.PARALLEL;
+        }
+        return AdjacencyStrategy.BITBOARD;
+    }
+
+    // Reports from the next phase or flood on; null goes back to EngineMetricsListener.NO_OP
+    public void setMetricsListener(EngineMetricsListener metrics) {
+        this.metrics = metrics != null ? metrics : EngineMetricsListener.NO_OP;
+    }
+
+    // Start time for a phase, or 0 when nobody listens so the clock is not read
+    private long startTimer() {
+        return metrics == EngineMetricsListener.NO_OP ? 0 : System.nanoTime();
+    }
 
-        initializeBoard();
-        placeMines();
+    // Only has an effect on a safeFirstClick board whose mines are not placed yet
+    public void setNoGuessGenerator(NoGuessGenerator noGuessGenerator, long timeoutMillis) {
+        this.noGuessGenerator = noGuessGenerator;
+        this.noGuessTimeoutMillis = timeoutMillis;
+    }
+
+    private void generateMines(int safeRow, int safeCol) {
+        if (noGuessGenerator != null && safeRow >= 0) {
+            NoGuessGenerator.Result result = noGuessGenerator.findSeed(rows, columns, minesPercent,
+                    safeRow, safeCol, seed, noGuessTimeoutMillis);
+            seed = result.seed;
+            noGuess = result.noGuess;
+        }
+        long start = startTimer();
+        int collisions = placeMines(excludedIndices(safeRow, safeCol));
+        if (start != 0) {
+            long placed = System.nanoTime();
+            metrics.onMinesPlaced(totalMines, collisions, placed - start);
+            start = placed;
+        }
         calculateAdjacentMines();
+        if (start != 0) {
+            metrics.onAdjacencyCalculated(adjacencyStrategy, System.nanoTime() - start);
+        }
+        minesPlaced = true;
+        firstTapIndex = safeRow < 0 ? -1 : safeRow * columns + safeCol;
     }
 
-    private void initializeBoard() {
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < columns; j++) {
-                board[i][j] = new Cell();
+    // Sorted indices of the squares that must stay free of mines, shrunk if the mines would not fit
+    private int[] excludedIndices(int safeRow, int safeCol) {
+        if (safeRow < 0) {
+            return new int[0];
+        }
+        int[] excluded = new int[9];
+        int count = 0;
+        for (int i = -1; i <= 1; i++) {
+            for (int j = -1; j <= 1; j++) {
+                if (isValidPosition(safeRow + i, safeCol + j)) {
+                    excluded[count++] = (safeRow + i) * columns + safeCol + j;
+                }
             }
         }
+        if (totalMines <= cells.length - count) {
+            int[] sorted = new int[count];
+            System.arraycopy(excluded, 0, sorted, 0, count);
+            return sorted;
+        }
+        if (totalMines < cells.length) {
+            return new int[] {safeRow * columns + safeCol};
+        }
+        return new int[0];
     }
 
-    private void placeMines() {
-        Random random = new Random();
-        int minesPlaced = 0;
-
-        while (minesPlaced < totalMines) {
-            int row = random.nextInt(rows);
-            int col = random.nextInt(columns);
+    /*
+     Floyd's sampling over the squares that are not excluded: exactly totalMines draws,
+     no retries however dense the board is, and the same seed always gives the same layout.
+     Returns how many draws collided with an earlier mine
+     */
+    private int placeMines(int[] excluded) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int available = cells.length - excluded.length;
+        int placed = 0;
+        int collisions = 0;
+        if (mineIndices == null) {
+            mineIndices = new int[totalMines];
+        }
 
-            if (!board[row][col].isMine) {
-                board[row][col].isMine = true;
-                minesPlaced++;
+        for (int j = available - totalMines; j < available; j++) {
+            int index = toCellIndex(random.nextInt(j + 1), excluded);
+            if ((cells[index] & MINE_BIT) != 0) {
+                // Already taken, so take j itself, which no earlier draw could have reached
+                index = toCellIndex(j, excluded);
+                collisions++;
             }
+            markMine(index);
+            mineIndices[placed++] = index;
+        }
+        return collisions;
+    }
+
+    // Maps a position among the available squares to a board index by skipping excluded squares
+    private static int toCellIndex(int position, int[] excluded) {
+        int index = position;
+        for (int i = 0; i < excluded.length && excluded[i] <= index; i++) {
+            index++;
+        }
+        return index;
+    }
+
+    private void markMine(int index) {
+        cells[index] |= MINE_BIT;
+        if (mineBitboard != null) {
+            mineBitboard.set(index / columns, index % columns);
         }
     }
 
     private void calculateAdjacentMines() {
+        switch (adjacencyStrategy) {
+            case BITBOARD:
+                mineBitboard.writeAdjacentCounts(cells, 0, rows);
+                break;
+            case MINE_DRIVEN:
+                pushAdjacentMines();
+                break;
+            case PARALLEL:
+                ForkJoinPool.commonPool().invoke(
+                        new AdjacencyBand(0, rows, Math.max(1, PARALLEL_BAND_CELLS / columns)));
+                break;
+            default:
+                scanAdjacentMines();
+                break;
+        }
+    }
+
+    private void pushAdjacentMines() {
+        for (int m = 0; m < mineIndices.length; m++) {
+            int row = mineIndices[m] / columns;
+            int col = mineIndices[m] % columns;
+            for (int i = -1; i <= 1; i++) {
+                for (int j = -1; j <= 1; j++) {
+                    int newRow = row + i;
+                    int newCol = col + j;
+                    if (isValidPosition(newRow, newCol)) {
+                        int index = newRow * columns + newCol;
+                        // Mines keep a count of 0, the mine itself is skipped by its own bit
+                        if ((cells[index] & MINE_BIT) == 0) {
+                            cells[index]++;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     counts one band of rows; a band only writes its own rows and reads its neighbours'
+     mine bits, so bands can run concurrently without any coordination at the edges
+     */
+    private class AdjacencyBand extends RecursiveAction {
+        // ForkJoinTask is Serializable; these tasks never are
+        private static final long serialVersionUID = 1L;
+
+        private final int fromRow;
+        private final int toRow;
+        private final int leafRows;
+
+        AdjacencyBand(int fromRow, int toRow, int leafRows) {
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.leafRows = leafRows;
+        }
+
+        @Override
+        protected void compute() {
+            if (toRow - fromRow <= leafRows) {
+                mineBitboard.writeAdjacentCounts(cells, fromRow, toRow);
+                return;
+            }
+            int middle = (fromRow + toRow) >>> 1;
+            invokeAll(new AdjacencyBand(fromRow, middle, leafRows), new AdjacencyBand(middle, toRow, leafRows));
+        }
+    }
+
+    private void scanAdjacentMines() {
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < columns; j++) {
-                if (!board[i][j].isMine) {
-                    board[i][j].adjacentMines = countAdjacentMines(i, j);
+                int index = i * columns + j;
+                if ((cells[index] & MINE_BIT) == 0) {
+                    cells[index] |= countAdjacentMines(i, j);
                 }
             }
         }
@@ -88,7 +392,7 @@ public class GameBoard {
             for (int j = -1; j <= 1; j++) {
                 int newRow = row + i;
                 int newCol = col + j;
-                if (isValidPosition(newRow, newCol) && board[newRow][newCol].isMine) {
+                if (isValidPosition(newRow, newCol) && (cells[newRow * columns + newCol] & MINE_BIT) != 0) {
                     count++;
                 }
             }
@@ -100,79 +404,271 @@ public class GameBoard {
         return row >= 0 && row < rows && col >= 0 && col < columns;
     }
 
+    /*
+     places the mines for a first tap on this square, exactly as revealCell would, so that a
+     caller can run the sampling and adjacency counts off the UI thread and then reveal. Nothing
+     else may touch the board until it returns. Does nothing once the mines are placed or when
+     the square is not covered, as revealCell would not place them then either
+     */
+    public void placeMinesAround(int row, int col) {
+        if (!minesPlaced && (cells[row * columns + col] & STATE_MASK) == COVERED) {
+            generateMines(row, col);
+        }
+    }
+
     public boolean revealCell(int row, int col) {
+        changes.clear();
         if (gameOver || gameWon) {
             return false;
         }
 
-        Cell cell = board[row][col];
+        int index = row * columns + col;
+        if (!minesPlaced && (cells[index] & STATE_MASK) == COVERED) {
+            generateMines(row, col);
+        }
+        int cell = cells[index];
 
         // Cannot reveal flagged cells
-        if (cell.state == CellState.FLAGGED) {
+        if ((cell & STATE_MASK) == FLAGGED) {
             return false;
         }
 
         // Already uncovered
-        if (cell.state == CellState.UNCOVERED) {
+        if ((cell & STATE_MASK) == UNCOVERED) {
             return false;
         }
 
-        // Reveal the cell
-        cell.state = CellState.UNCOVERED;
-        uncoveredCells++;
-
         // Check if mine was hit
-        if (cell.isMine) {
+        if (uncover(row, col)) {
             gameOver = true;
             revealAllMines();
             return true; // Signal that game is lost
         }
 
-        // If cell has 0 adjacent mines, reveal surrounding cells
-        if (cell.adjacentMines == 0) {
-            revealAdjacentCells(row, col);
-        }
-
         // Check win condition
         checkWinCondition();
 
         return false; // Game continues
     }
 
-    private void revealAdjacentCells(int row, int col) {
+    /*
+     tapping an uncovered number whose flagged neighbours match it opens all its other covered
+     neighbours; returns true if a wrong flag let one of them be a mine, which loses the game
+     */
+    public boolean chord(int row, int col) {
+        changes.clear();
+        if (gameOver || gameWon) {
+            return false;
+        }
+
+        int index = row * columns + col;
+        int cell = cells[index];
+        int adjacentMines = cell & ADJACENT_MASK;
+        if ((cell & (STATE_MASK | MINE_BIT)) != UNCOVERED || adjacentMines == 0
+                || adjacentFlags[index] != adjacentMines) {
+            return false;
+        }
+
+        // Open every neighbour before deciding the outcome, as a player sees all of them turn over
+        boolean hitMine = false;
         for (int i = -1; i <= 1; i++) {
             for (int j = -1; j <= 1; j++) {
                 int newRow = row + i;
                 int newCol = col + j;
+                // A flood from an earlier neighbour may already have uncovered this one
+                if (isValidPosition(newRow, newCol)
+                        && (cells[newRow * columns + newCol] & STATE_MASK) == COVERED) {
+                    hitMine |= uncover(newRow, newCol);
+                }
+            }
+        }
 
-                if (isValidPosition(newRow, newCol)) {
-                    Cell cell = board[newRow][newCol];
-                    if (cell.state == CellState.COVERED && !cell.isMine) {
-                        cell.state = CellState.UNCOVERED;
-                        uncoveredCells++;
+        if (hitMine) {
+            gameOver = true;
+            revealAllMines();
+            return true;
+        }
+        checkWinCondition();
+        return false;
+    }
 
-                        // Recursively reveal if this cell also has 0 adjacent mines
-                        if (cell.adjacentMines == 0) {
-                            revealAdjacentCells(newRow, newCol);
-                        }
-                    }
-                }
+    // Uncovers a covered square, flooding on from it if it is a 0; returns true if it is a mine
+    private boolean uncover(int row, int col) {
+        int index = row * columns + col;
+        int cell = cells[index];
+        cells[index] = (byte) ((cell & ~STATE_MASK) | UNCOVERED);
+        uncoveredCells++;
+        changes.add(index);
+
+        if ((cell & MINE_BIT) != 0) {
+            return true;
+        }
+        // If cell has 0 adjacent mines, reveal surrounding cells
+        if ((cell & ADJACENT_MASK) == 0) {
+            revealAdjacentCells(row, col);
+        }
+        return false;
+    }
+
+    // Floods from the 0 just uncovered at (row, col) and reports it to the metrics listener
+    private void revealAdjacentCells(int row, int col) {
+        int changedBefore = changes.size();
+        int probes = flood(row * columns + col, STATE_MASK | MINE_BIT, COVERED);
+        int opened = changes.size() - changedBefore;
+        uncoveredCells += opened;
+        // Counting the 0 the flood started from
+        metrics.onFloodReveal(opened + 1, probes);
+    }
+
+    /*
+     scanline flood from the 0 at start, which is already turned over. A run of 0s along a row
+     is turned as one span together with the square past each end, then the rows above and below
+     it are turned from one square before the span to one after. Every 0 met there grows into a
+     span of its own. The stack holds spans rather than squares, so it stays about as deep as
+     the region is ragged instead of as large as the region, and every square is read a few
+     times at most.
+
+     A square is turned over if its bits under mask equal match: covered safe squares when a
+     reveal opens them, or the unmarked uncovered squares when undoMove() covers them again.
+     Turned squares go into changes; the caller adjusts uncoveredCells. Returns the squares read
+     */
+    private int flood(int start, int mask, int match) {
+        floodSize = 0;
+        pushSpan(start, mask, match);
+        int probes = lastSpanProbes();
+
+        while (floodSize > 0) {
+            int last = floodSpans[--floodSize];
+            int first = floodSpans[--floodSize];
+            int spanRow = first / columns;
+            int from = Math.max(first - spanRow * columns - 1, 0);
+            int to = Math.min(last - spanRow * columns + 1, columns - 1);
+            if (spanRow > 0) {
+                probes += turnRow(spanRow - 1, from, to, mask, match);
+            }
+            if (spanRow < rows - 1) {
+                probes += turnRow(spanRow + 1, from, to, mask, match);
             }
         }
+        if (floodSpans.length > FLOOD_STACK_KEPT) {
+            floodSpans = new int[64];
+        }
+        return probes;
+    }
+
+    /*
+     turns the matching squares from..to of a row next to a span; every 0 among them starts a
+     span. Returns how many squares it and those spans read
+     */
+    private int turnRow(int row, int from, int to, int mask, int match) {
+        int base = row * columns;
+        int probes = 0;
+        for (int col = from; col <= to; col++) {
+            int index = base + col;
+            int cell = cells[index];
+            probes++;
+            if ((cell & mask) != match) {
+                continue;
+            }
+            turnFlooded(index, cell);
+            if ((cell & ADJACENT_MASK) == 0) {
+                // The span turned everything up to the square past its end
+                int last = pushSpan(index, mask, match);
+                probes += lastSpanProbes();
+                col = last - base + 1;
+            }
+        }
+        return probes;
+    }
+
+    // Squares pushSpan read to grow the span on top of the stack: all but its 0, plus the
+    // square that stopped it at each end short of the row's edge
+    private int lastSpanProbes() {
+        int first = floodSpans[floodSize - 2];
+        int last = floodSpans[floodSize - 1];
+        int rowStart = first - first % columns;
+        return last - first + (first > rowStart ? 1 : 0) + (last < rowStart + columns - 1 ? 1 : 0);
+    }
+
+    /*
+     grows the 0 just turned at index into the run of matching 0s around it along the row,
+     turning the run and the number past each end, and pushes it; returns its last index
+     */
+    private int pushSpan(int index, int mask, int match) {
+        int rowStart = index - index % columns;
+        int rowEnd = rowStart + columns - 1;
+        int first = index;
+        while (first > rowStart) {
+            int cell = cells[first - 1];
+            if ((cell & mask) != match) {
+                break;
+            }
+            turnFlooded(first - 1, cell);
+            if ((cell & ADJACENT_MASK) != 0) {
+                break;
+            }
+            first--;
+        }
+        int last = index;
+        while (last < rowEnd) {
+            int cell = cells[last + 1];
+            if ((cell & mask) != match) {
+                break;
+            }
+            turnFlooded(last + 1, cell);
+            if ((cell & ADJACENT_MASK) != 0) {
+                break;
+            }
+            last++;
+        }
+
+        if (floodSize + 2 > floodSpans.length) {
+            int[] grown = new int[floodSpans.length * 2];
+            System.arraycopy(floodSpans, 0, grown, 0, floodSize);
+            floodSpans = grown;
+        }
+        floodSpans[floodSize++] = first;
+        floodSpans[floodSize++] = last;
+        return last;
+    }
+
+    // A square next to a 0 is never a mine, so turning it over only flips its state between
+    // covered and uncovered
+    private void turnFlooded(int index, int cell) {
+        cells[index] = (byte) (cell ^ (COVERED ^ UNCOVERED));
+        changes.add(index);
     }
 
     public void toggleFlag(int row, int col) {
+        changes.clear();
         if (gameOver || gameWon) {
             return;
         }
 
-        Cell cell = board[row][col];
+        int index = row * columns + col;
+        int cell = cells[index];
 
         // Can only flag/unflag covered cells
-        if (cell.state == CellState.COVERED) {
-            cell.state = CellState.FLAGGED;
-        } else if (cell.state == CellState.FLAGGED) {
-            cell.state = CellState.COVERED;
+        if ((cell & STATE_MASK) == COVERED) {
+            cells[index] = (byte) ((cell & ~STATE_MASK) | FLAGGED);
+            changes.add(index);
+            flaggedCells++;
+            addAdjacentFlags(row, col, 1);
+        } else if ((cell & STATE_MASK) == FLAGGED) {
+            cells[index] = (byte) ((cell & ~STATE_MASK) | COVERED);
+            changes.add(index);
+            flaggedCells--;
+            addAdjacentFlags(row, col, -1);
+        }
+    }
+
+    private void addAdjacentFlags(int row, int col, int delta) {
+        for (int i = -1; i <= 1; i++) {
+            for (int j = -1; j <= 1; j++) {
+                if ((i != 0 || j != 0) && isValidPosition(row + i, col + j)) {
+                    adjacentFlags[(row + i) * columns + col + j] += delta;
+                }
+            }
         }
     }
 
@@ -185,17 +681,253 @@ public class GameBoard {
     }
 
     private void revealAllMines() {
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < columns; j++) {
-                if (board[i][j].isMine) {
-                    board[i][j].state = CellState.UNCOVERED;
+        shownFlags.clear();
+        for (int m = 0; m < mineIndices.length; m++) {
+            int index = mineIndices[m];
+            int cell = cells[index];
+            if ((cell & STATE_MASK) != UNCOVERED) {
+                cells[index] = (byte) ((cell & ~STATE_MASK) | UNCOVERED);
+                uncoveredCells++;
+                changes.add(index);
+                if ((cell & STATE_MASK) == FLAGGED) {
+                    flaggedCells--;
+                    addAdjacentFlags(index / columns, index % columns, -1);
+                    shownFlags.add(index);
+                }
+            }
+        }
+    }
+
+    // Compact copy of the game for onSaveInstanceState or a file, see GameSnapshot
+    public byte[] toSnapshot() {
+        return GameSnapshot.write(this);
+    }
+
+    // Rebuilds a game saved by toSnapshot(); throws IllegalArgumentException if the bytes are not one
+    public static GameBoard fromSnapshot(byte[] snapshot) {
+        return GameSnapshot.read(snapshot);
+    }
+
+    // Ints the flood span stack holds on to between taps
+    int floodStackLength() {
+        return floodSpans.length;
+    }
+
+    // The packed cell array itself, for GameSnapshot
+    byte[] cellBytes() {
+        return cells;
+    }
+
+    int getFirstTapIndex() {
+        return firstTapIndex;
+    }
+
+    // Places the mines exactly as the saved game did, around firstTapIndex unless it is -1
+    void restoreMines(int firstTapIndex) {
+        generateMines(firstTapIndex < 0 ? -1 : firstTapIndex / columns,
+                firstTapIndex < 0 ? -1 : firstTapIndex % columns);
+    }
+
+    /*
+     puts back mines a snapshot stored, totalMines of them in index order, without sampling them again. The
+     counts come out the same under every strategy, so they are worked out the quickest way for
+     this density rather than with the board's own strategy, which may be the slow SCAN
+     */
+    void restoreMines(int[] indices, int firstTapIndex) {
+        AdjacencyStrategy fastest = resolveAdjacencyStrategy(AdjacencyStrategy.AUTO, cells.length, totalMines);
+        MineBitboard bitboard = mineBitboard;
+        if (bitboard == null && fastest != AdjacencyStrategy.MINE_DRIVEN) {
+            bitboard = new MineBitboard(rows, columns);
+        }
+        // The indices come sorted, so the row is followed along instead of divided out per mine
+        int row = 0;
+        int rowStart = 0;
+        for (int m = 0; m < indices.length; m++) {
+            int index = indices[m];
+            while (index >= rowStart + columns) {
+                row++;
+                rowStart += columns;
+            }
+            cells[index] |= MINE_BIT;
+            if (bitboard != null) {
+                bitboard.set(row, index - rowStart);
+            }
+        }
+        mineIndices = indices;
+        if (fastest == AdjacencyStrategy.MINE_DRIVEN) {
+            pushAdjacentMines();
+        } else if (bitboard == mineBitboard) {
+            calculateAdjacentMines();
+        } else {
+            bitboard.writeAdjacentCounts(cells, 0, rows);
+        }
+        minesPlaced = true;
+        this.firstTapIndex = firstTapIndex;
+    }
+
+    // Flags a covered square of a restored game or an undone move; false if it cannot hold a flag
+    boolean restoreFlag(int index) {
+        if ((cells[index] & STATE_MASK) != COVERED) {
+            return false;
+        }
+        cells[index] |= FLAGGED;
+        flaggedCells++;
+        addAdjacentFlags(index / columns, index % columns, 1);
+        return true;
+    }
+
+    // Takes the saved game status once GameSnapshot has set the uncovered squares
+    void restoreStatus(int uncoveredCells, boolean gameOver, boolean gameWon, boolean noGuess) {
+        this.uncoveredCells = uncoveredCells;
+        this.gameOver = gameOver;
+        this.gameWon = gameWon;
+        this.noGuess = noGuess;
+    }
+
+    /*
+     for MoveJournal, right after a revealCell, or a chord at chordIndex (-1 for a reveal), that
+     changed something: fills stops with the squares next to what it opened that were uncovered
+     before it. A flood stops at those and at flags, so with them undoMove() can run the flood
+     again and find the same squares. They are the border the move shared with earlier ones,
+     usually none
+     */
+    void collectStops(int chordIndex, CellChangeSet stops) {
+        stops.clear();
+        for (int k = 0; k < changes.size(); k++) {
+            cells[changes.get(k)] |= MARK_BIT;
+        }
+        // The chord's own square stays uncovered; undoMove() marks it itself
+        if (chordIndex >= 0) {
+            cells[chordIndex] |= MARK_BIT;
+            addStops(chordIndex, stops);
+        }
+        for (int k = 0; k < changes.size(); k++) {
+            int index = changes.get(k);
+            if ((cells[index] & (MINE_BIT | ADJACENT_MASK)) == 0) {
+                addStops(index, stops);
+            }
+        }
+        for (int k = 0; k < changes.size(); k++) {
+            cells[changes.get(k)] &= ~MARK_BIT;
+        }
+        for (int k = 0; k < stops.size(); k++) {
+            cells[stops.get(k)] &= ~MARK_BIT;
+        }
+        if (chordIndex >= 0) {
+            cells[chordIndex] &= ~MARK_BIT;
+        }
+    }
+
+    // Adds the uncovered neighbours of index that are not marked yet, and marks them
+    private void addStops(int index, CellChangeSet stops) {
+        int row = index / columns;
+        int col = index % columns;
+        for (int i = Math.max(0, row - 1); i <= Math.min(rows - 1, row + 1); i++) {
+            for (int j = Math.max(0, col - 1); j <= Math.min(columns - 1, col + 1); j++) {
+                int neighbour = i * columns + j;
+                if ((cells[neighbour] & (STATE_MASK | MARK_BIT)) == UNCOVERED) {
+                    cells[neighbour] |= MARK_BIT;
+                    stops.add(neighbour);
+                }
+            }
+        }
+    }
+
+    /*
+     takes back the revealCell at index, or the chord there if chord, that was the last move: the
+     squares it opened are the uncovered ones its flood reaches again from index, passing only
+     0s and stopping at the first stopCount stops from collectStops(). A move that ended the
+     game also uncovered every mine, so those are covered too; MoveJournal then puts back the
+     flags that were on them. The squares covered again become the last changes
+     */
+    void undoMove(int index, boolean chord, int[] stops, int stopCount) {
+        boolean ended = gameOver || gameWon;
+        changes.clear();
+        gameOver = false;
+        gameWon = false;
+        for (int k = 0; k < stopCount; k++) {
+            cells[stops[k]] |= MARK_BIT;
+        }
+        if (chord) {
+            int row = index / columns;
+            int col = index % columns;
+            cells[index] |= MARK_BIT;
+            for (int i = Math.max(0, row - 1); i <= Math.min(rows - 1, row + 1); i++) {
+                for (int j = Math.max(0, col - 1); j <= Math.min(columns - 1, col + 1); j++) {
+                    coverOpened(i * columns + j);
+                }
+            }
+            cells[index] &= ~MARK_BIT;
+        } else {
+            coverOpened(index);
+        }
+        for (int k = 0; k < stopCount; k++) {
+            cells[stops[k]] &= ~MARK_BIT;
+        }
+        if (ended) {
+            for (int m = 0; m < mineIndices.length; m++) {
+                if ((cells[mineIndices[m]] & STATE_MASK) == UNCOVERED) {
+                    coverCell(mineIndices[m]);
                 }
             }
         }
     }
 
+    // Covers a square the move being undone opened, and from a 0 everything its flood opened
+    private void coverOpened(int index) {
+        int cell = cells[index];
+        if ((cell & (STATE_MASK | MARK_BIT)) != UNCOVERED) {
+            return;
+        }
+        coverCell(index);
+        if ((cell & (MINE_BIT | ADJACENT_MASK)) == 0) {
+            int changedBefore = changes.size();
+            flood(index, STATE_MASK | MARK_BIT, UNCOVERED);
+            uncoveredCells -= changes.size() - changedBefore;
+        }
+    }
+
+    // Turns an uncovered square back to covered; restoreFlag() puts a flag back on it
+    private void coverCell(int index) {
+        cells[index] = (byte) ((cells[index] & ~STATE_MASK) | COVERED);
+        uncoveredCells--;
+        changes.add(index);
+    }
+
+    // Squares that were flagged mines until the move that ended the game uncovered them
+    CellChangeSet getShownFlags() {
+        return shownFlags;
+    }
+
+    // Squares changed by the last revealCell/chord/toggleFlag, including mines shown when the game ends.
+    // The same instance is refilled by every move, so read it before making the next one
+    public CellChangeSet getLastChanges() {
+        return changes;
+    }
+
+    // Returns a copy of the square; prefer the primitive getters below in loops
     public Cell getCell(int row, int col) {
-        return board[row][col];
+        Cell cell = new Cell();
+        cell.isMine = isMine(row, col);
+        cell.adjacentMines = getAdjacentMines(row, col);
+        cell.state = getState(row, col);
+        return cell;
+    }
+
+    public CellState getState(int row, int col) {
+        return STATES[(cells[row * columns + col] & STATE_MASK) >> STATE_SHIFT];
+    }
+
+    public boolean isMine(int row, int col) {
+        return (cells[row * columns + col] & MINE_BIT) != 0;
+    }
+
+    public int getAdjacentMines(int row, int col) {
+        return cells[row * columns + col] & ADJACENT_MASK;
+    }
+
+    public int getAdjacentFlags(int row, int col) {
+        return adjacentFlags[row * columns + col];
     }
 
     public int getRows() {
@@ -206,6 +938,58 @@ public class GameBoard {
         return columns;
     }
 
+    public int getMinesPercent() {
+        return minesPercent;
+    }
+
+    public int getTotalMines() {
+        return totalMines;
+    }
+
+    // Mines minus flags, as shown on a mine counter; goes negative when there are too many flags
+    public int getMinesRemaining() {
+        return totalMines - flaggedCells;
+    }
+
+    public int getFlagCount() {
+        return flaggedCells;
+    }
+
+    public int getUncoveredCells() {
+        return uncoveredCells;
+    }
+
+    // Squares not uncovered yet, flagged ones included
+    public int getCoveredCells() {
+        return cells.length - uncoveredCells;
+    }
+
+    // Copy of the mine positions as row * columns + col; empty until the mines are placed
+    public int[] getMineIndices() {
+        return minesPlaced ? mineIndices.clone() : new int[0];
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    // True when the layout was verified solvable without guessing from the first tap
+    public boolean isNoGuess() {
+        return noGuess;
+    }
+
+    public AdjacencyStrategy getAdjacencyStrategy() {
+        return adjacencyStrategy;
+    }
+
+    public boolean isSafeFirstClick() {
+        return safeFirstClick;
+    }
+
+    public boolean areMinesPlaced() {
+        return minesPlaced;
+    }
+
     public boolean isGameOver() {
         return gameOver;
     }
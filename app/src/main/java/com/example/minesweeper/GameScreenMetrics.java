@@ -0,0 +1,133 @@
+package com.example.minesweeper;
+
+import android.util.Log;
+import android.view.Choreographer;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+
+/*
+ latency histograms for the game screen, all recorded on the main thread:
+   - tap: the whole cell click or long-click handler. The first tap of a game also takes in
+     placing the mines on the worker thread and the hop back to the main thread
+   - engine: the GameBoard move inside it, mine placement included
+   - render: one BoardView.onDraw
+   - tapToFrame: from the start of a tap handler to the end of the draw that shows its result
+   - frame: time between consecutive Choreographer frames while the board keeps drawing,
+     for pan and zoom smoothness; idle frames are not counted and do not keep vsync running
+ dump() writes p50/p95/p99 of each to logcat and appends them to a file, off the main thread.
+ */
+public class GameScreenMetrics implements Choreographer.FrameCallback {
+
+    private static final String TAG = "GameScreenMetrics";
+
+    private final LatencyHistogram tap = new LatencyHistogram("tap");
+    private final LatencyHistogram engine = new LatencyHistogram("engine");
+    private final LatencyHistogram render = new LatencyHistogram("render");
+    private final LatencyHistogram tapToFrame = new LatencyHistogram("tapToFrame");
+    private final LatencyHistogram frame = new LatencyHistogram("frame");
+    private final LatencyHistogram[] all = {tap, engine, render, tapToFrame, frame};
+
+    private long tapStart;
+    private long engineStart;
+    // Start of the last tap whose result has not been drawn yet, 0 if none
+    private long pendingTapStart;
+    private long lastFrameTime;
+    private boolean frameCallbackPosted;
+    private boolean drawnSinceLastFrame;
+
+    public void onTapStart() {
+        tapStart = System.nanoTime();
+    }
+
+    // redrawPending is false when the move changed nothing in view, so no frame will show it.
+    // Draws before this, such as panning while the mines are placed, do not count for the tap
+    public void onTapEnd(boolean redrawPending) {
+        tap.record(System.nanoTime() - tapStart);
+        pendingTapStart = redrawPending ? tapStart : 0;
+    }
+
+    public void onEngineStart() {
+        engineStart = System.nanoTime();
+    }
+
+    public void onEngineEnd() {
+        engine.record(System.nanoTime() - engineStart);
+    }
+
+    // Called by BoardView after every draw with the time onDraw took
+    public void onBoardDrawn(long drawNanos) {
+        render.record(drawNanos);
+        if (pendingTapStart != 0) {
+            tapToFrame.record(System.nanoTime() - pendingTapStart);
+            pendingTapStart = 0;
+        }
+        drawnSinceLastFrame = true;
+        if (!frameCallbackPosted) {
+            frameCallbackPosted = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameCallbackPosted = false;
+        if (lastFrameTime != 0) {
+            frame.record(frameTimeNanos - lastFrameTime);
+        }
+        if (drawnSinceLastFrame) {
+            // Still drawing, keep measuring frame to frame
+            drawnSinceLastFrame = false;
+            lastFrameTime = frameTimeNanos;
+            frameCallbackPosted = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        } else {
+            lastFrameTime = 0;
+        }
+    }
+
+    public void stop() {
+        Choreographer.getInstance().removeFrameCallback(this);
+        frameCallbackPosted = false;
+        lastFrameTime = 0;
+        pendingTapStart = 0;
+    }
+
+    /*
+     takes p50/p95/p99 of every histogram and starts over, on the main thread where they are
+     recorded; logging them and appending them, with the board size, to file runs on executor
+     so the screen never waits on storage
+     */
+    public void dump(final File file, int rows, int columns, Executor executor) {
+        if (tap.getCount() == 0 && render.getCount() == 0) {
+            return;
+        }
+        final String[] lines = new String[all.length];
+        for (int h = 0; h < all.length; h++) {
+            lines[h] = all[h].summary();
+            all[h].reset();
+        }
+        final String header = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US).format(new Date())
+                + ' ' + rows + 'x' + columns;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                StringBuilder report = new StringBuilder(header).append('\n');
+                for (String line : lines) {
+                    Log.i(TAG, line);
+                    report.append(line).append('\n');
+                }
+                try (FileWriter writer = new FileWriter(file, true)) {
+                    writer.write(report.toString());
+                } catch (IOException e) {
+                    Log.w(TAG, "Could not write " + file, e);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.minesweeper;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.core.content.ContextCompat;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/*
+ immutable copy of the saved settings. It is read from SharedPreferences once per process and
+ replaced when they change, so screens read plain fields instead of going back to the preferences
+ for every value.
+
+ SharedPreferences reports every key an apply() wrote separately, up to seven for one save in
+ SettingsActivity. Each report only drops the snapshot, which the next get() reads again, and
+ the listeners are told once, from a task posted to the main thread after the last report.
+ */
+public final class GameSettings {
+
+    public interface OnChangeListener {
+        void onSettingsChanged(GameSettings settings);
+    }
+
+    static final String PREFS_NAME = "MinesweeperSettings";
+    static final String KEY_ROWS = "rows";
+    static final String KEY_COLUMNS = "columns";
+    static final String KEY_MINES_PERCENT = "minesPercent";
+    static final String KEY_COVERED_COLOR = "coveredColor";
+    static final String KEY_UNCOVERED_COLOR = "uncoveredColor";
+    static final String KEY_SUSPECTED_COLOR = "suspectedColor";
+    static final String KEY_MINE_COLOR = "mineColor";
+
+    // Colour resources of each palette, index = saved colour index - 1
+    static final int[] COVERED_COLORS = {
+            R.color.covered_color_1, R.color.covered_color_2, R.color.covered_color_3,
+            R.color.covered_color_4, R.color.covered_color_5};
+    static final int[] UNCOVERED_COLORS = {
+            R.color.uncovered_color_1, R.color.uncovered_color_2, R.color.uncovered_color_3,
+            R.color.uncovered_color_4, R.color.uncovered_color_5};
+    static final int[] SUSPECTED_COLORS = {
+            R.color.suspected_color_1, R.color.suspected_color_2, R.color.suspected_color_3,
+            R.color.suspected_color_4, R.color.suspected_color_5};
+    static final int[] MINE_COLORS = {
+            R.color.mine_color_1, R.color.mine_color_2, R.color.mine_color_3,
+            R.color.mine_color_4, R.color.mine_color_5};
+
+    private static volatile GameSettings current;
+    private static SharedPreferences prefs;
+    // SharedPreferences only holds listeners weakly, so this one is kept here
+    private static SharedPreferences.OnSharedPreferenceChangeListener preferenceListener;
+    private static Executor mainExecutor;
+    // Main thread only: a notification is posted and has not run yet
+    private static boolean notifyPosted;
+    private static final CopyOnWriteArrayList<OnChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    public final int rows;
+    public final int columns;
+    public final int minesPercent;
+    public final int coveredColor;
+    public final int uncoveredColor;
+    public final int suspectedColor;
+    public final int mineColor;
+
+    private GameSettings(SharedPreferences prefs) {
+        rows = prefs.getInt(KEY_ROWS, 8);
+        columns = prefs.getInt(KEY_COLUMNS, 8);
+        minesPercent = prefs.getInt(KEY_MINES_PERCENT, 15);
+        coveredColor = prefs.getInt(KEY_COVERED_COLOR, 1);
+        uncoveredColor = prefs.getInt(KEY_UNCOVERED_COLOR, 1);
+        suspectedColor = prefs.getInt(KEY_SUSPECTED_COLOR, 1);
+        mineColor = prefs.getInt(KEY_MINE_COLOR, 1);
+    }
+
+    public static GameSettings get(Context context) {
+        GameSettings settings = current;
+        if (settings != null) {
+            return settings;
+        }
+        synchronized (GameSettings.class) {
+            if (prefs == null) {
+                Context appContext = context.getApplicationContext();
+                prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+                mainExecutor = ContextCompat.getMainExecutor(appContext);
+                preferenceListener = new SharedPreferences.OnSharedPreferenceChangeListener() {
+                    @Override
+                    public void onSharedPreferenceChanged(SharedPreferences preferences, String key) {
+                        // Under the lock, so a load() already reading the old values finishes first
+                        synchronized (GameSettings.class) {
+                            current = null;
+                        }
+                        if (!notifyPosted) {
+                            notifyPosted = true;
+                            mainExecutor.execute(NOTIFY_LISTENERS);
+                        }
+                    }
+                };
+                prefs.registerOnSharedPreferenceChangeListener(preferenceListener);
+            }
+            return load();
+        }
+    }
+
+    // The snapshot, read again if a change dropped it; only called once prefs is set
+    private static synchronized GameSettings load() {
+        if (current == null) {
+            current = new GameSettings(prefs);
+        }
+        return current;
+    }
+
+    private static final Runnable NOTIFY_LISTENERS = new Runnable() {
+        @Override
+        public void run() {
+            notifyPosted = false;
+            GameSettings settings = load();
+            for (OnChangeListener listener : listeners) {
+                listener.onSettingsChanged(settings);
+            }
+        }
+    };
+
+    // Called on the main thread with the new snapshot once per saved change, however many keys it wrote
+    public static void addOnChangeListener(OnChangeListener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public static void removeOnChangeListener(OnChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    public int getCoveredColorResId() {
+        return colorResId(COVERED_COLORS, coveredColor);
+    }
+
+    public int getUncoveredColorResId() {
+        return colorResId(UNCOVERED_COLORS, uncoveredColor);
+    }
+
+    public int getSuspectedColorResId() {
+        return colorResId(SUSPECTED_COLORS, suspectedColor);
+    }
+
+    public int getMineColorResId() {
+        return colorResId(MINE_COLORS, mineColor);
+    }
+
+    // Falls back to the first colour for an index saved by a build with more colours
+    private static int colorResId(int[] palette, int index) {
+        return index >= 1 && index <= palette.length ? palette[index - 1] : palette[0];
+    }
+}
@@ -0,0 +1,426 @@
+package com.example.minesweeper;
+
+/*
+ bit-packed binary form of a GameBoard, small enough for a Bundle on normal boards.
+
+ Mines are stored rather than placed again from the seed, so a restore costs one adjacency pass
+ and no sampling: as varint gaps between mines on a sparse board, or as a bitmap of 1 bit per
+ square when the gaps would take more room. Uncovered squares are stored either as runs,
+ alternating varint lengths of not-uncovered and uncovered squares, which suits the large open
+ areas of a sparse board, or as a bitmap when runs would not save at least half of it. Flags
+ are few, so they follow as a list of varint gaps between flagged squares. Counters are stored
+ too and checked against the restored squares. The seed and first tap are kept for
+ MoveJournal.replay().
+
+ The adjacency pass is what a restore still costs. On 1000x1000 that is about 0.3 ms at 1% mines
+ but 3-5 ms at 20%, so restoring a dense board that size is not a sub-millisecond operation.
+ Writing stays around 1-2 ms. A dense board stores a 125 KB mine bitmap, too much for a Bundle,
+ so GameActivity keeps snapshots that big in a file.
+
+ Layout, big-endian: magic "MS", version, rows, columns, minesPercent, seed, first tap,
+ status flags, adjacency strategy, uncovered count, flag count, mine encoding, mines (only when
+ placed), square encoding, squares, flags.
+ */
+final class GameSnapshot {
+
+    private static final int MAGIC = 0x4D53;
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 2 + 1 + 4 + 4 + 1 + 8 + 4 + 1 + 1 + 4 + 4 + 1;
+
+    private static final int SAFE_FIRST_CLICK = 1;
+    private static final int MINES_PLACED = 1 << 1;
+    private static final int GAME_OVER = 1 << 2;
+    private static final int GAME_WON = 1 << 3;
+    private static final int NO_GUESS = 1 << 4;
+
+    private static final int UNCOVERED_RUNS = 0;
+    private static final int UNCOVERED_BITMAP = 1;
+
+    private static final int MINE_GAPS = 0;
+    private static final int MINE_BITMAP = 1;
+
+    private static final GameBoard.AdjacencyStrategy[] STRATEGIES = GameBoard.AdjacencyStrategy.values();
+
+    private byte[] buffer;
+    private int position;
+
+    private GameSnapshot(byte[] buffer) {
+        this.buffer = buffer;
+    }
+
+    static byte[] write(GameBoard board) {
+        byte[] cells = board.cellBytes();
+        int bitmapBytes = (cells.length + 7) >>> 3;
+        GameSnapshot out = new GameSnapshot(new byte[HEADER_BYTES + 1 + 2 * bitmapBytes
+                + 5 * (board.getFlagCount() + 1)]);
+        out.writeShort(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(board.getRows());
+        out.writeInt(board.getColumns());
+        out.writeByte(board.getMinesPercent());
+        out.writeLong(board.getSeed());
+        out.writeInt(board.getFirstTapIndex());
+        out.writeByte((board.isSafeFirstClick() ? SAFE_FIRST_CLICK : 0)
+                | (board.areMinesPlaced() ? MINES_PLACED : 0)
+                | (board.isGameOver() ? GAME_OVER : 0)
+                | (board.isGameWon() ? GAME_WON : 0)
+                | (board.isNoGuess() ? NO_GUESS : 0));
+        out.writeByte(board.getAdjacencyStrategy().ordinal());
+        out.writeInt(board.getUncoveredCells());
+        out.writeInt(board.getFlagCount());
+
+        // The squares are read once, 8 at a time, into the uncovered and mine bitmaps, counting
+        // run boundaries and collecting flags on the way
+        byte[] bitmap = new byte[bitmapBytes];
+        byte[] mineBitmap = new byte[bitmapBytes];
+        int[] flagged = new int[board.getFlagCount()];
+        int flagCount = 0;
+        int boundaries = 0;
+        int previousBit = 0;
+        for (int base = 0; base < cells.length; base += 8) {
+            int end = Math.min(base + 8, cells.length);
+            int bits;
+            int mines;
+            int any;
+            if (end - base == 8) {
+                // Straight-line for whole bytes, this loop is most of the cost of a snapshot
+                int c0 = cells[base];
+                int c1 = cells[base + 1];
+                int c2 = cells[base + 2];
+                int c3 = cells[base + 3];
+                int c4 = cells[base + 4];
+                int c5 = cells[base + 5];
+                int c6 = cells[base + 6];
+                int c7 = cells[base + 7];
+                bits = ((c0 & GameBoard.UNCOVERED) >>> 4) | ((c1 & GameBoard.UNCOVERED) >>> 3)
+                        | ((c2 & GameBoard.UNCOVERED) >>> 2) | ((c3 & GameBoard.UNCOVERED) >>> 1)
+                        | (c4 & GameBoard.UNCOVERED) | ((c5 & GameBoard.UNCOVERED) << 1)
+                        | ((c6 & GameBoard.UNCOVERED) << 2) | ((c7 & GameBoard.UNCOVERED) << 3);
+                mines = ((c0 & GameBoard.MINE_BIT) >>> 6) | ((c1 & GameBoard.MINE_BIT) >>> 5)
+                        | ((c2 & GameBoard.MINE_BIT) >>> 4) | ((c3 & GameBoard.MINE_BIT) >>> 3)
+                        | ((c4 & GameBoard.MINE_BIT) >>> 2) | ((c5 & GameBoard.MINE_BIT) >>> 1)
+                        | (c6 & GameBoard.MINE_BIT) | ((c7 & GameBoard.MINE_BIT) << 1);
+                any = c0 | c1 | c2 | c3 | c4 | c5 | c6 | c7;
+            } else {
+                bits = 0;
+                mines = 0;
+                any = 0;
+                for (int index = base; index < end; index++) {
+                    bits |= ((cells[index] & GameBoard.UNCOVERED) >>> 4) << (index - base);
+                    mines |= ((cells[index] & GameBoard.MINE_BIT) >>> 6) << (index - base);
+                    any |= cells[index];
+                }
+            }
+            bitmap[base >>> 3] = (byte) bits;
+            mineBitmap[base >>> 3] = (byte) mines;
+            // A boundary is a square whose state differs from the one before it; the first run
+            // is of covered squares, so an uncovered first square counts as one too
+            boundaries += Integer.bitCount((bits ^ ((bits << 1) | previousBit)) & ((1 << (end - base)) - 1));
+            previousBit = (bits >>> (end - base - 1)) & 1;
+
+            if ((any & GameBoard.FLAGGED) != 0) {
+                for (int index = base; index < end; index++) {
+                    if ((cells[index] & GameBoard.FLAGGED) != 0) {
+                        flagged[flagCount++] = index;
+                    }
+                }
+            }
+        }
+
+        // Gaps take at least a byte a mine, so they only win below 1 mine per 8 squares
+        if (board.areMinesPlaced()) {
+            int mineEncodingAt = out.position++;
+            int gapsStart = out.position;
+            if (board.getTotalMines() < bitmapBytes && out.writeGaps(mineBitmap, gapsStart + bitmapBytes)) {
+                out.buffer[mineEncodingAt] = MINE_GAPS;
+            } else {
+                out.buffer[mineEncodingAt] = MINE_BITMAP;
+                out.position = gapsStart;
+                out.ensureCapacity(bitmapBytes);
+                System.arraycopy(mineBitmap, 0, out.buffer, out.position, bitmapBytes);
+                out.position += bitmapBytes;
+            }
+        }
+
+        // Every run takes at least a byte; runs are only tried when they can save half the bitmap,
+        // below that they are barely smaller and take longer to write and read
+        int encodingAt = out.position++;
+        int runsStart = out.position;
+        if (boundaries < bitmapBytes / 2 && out.writeRuns(bitmap, cells.length, runsStart + bitmapBytes)) {
+            out.buffer[encodingAt] = UNCOVERED_RUNS;
+        } else {
+            out.buffer[encodingAt] = UNCOVERED_BITMAP;
+            out.position = runsStart;
+            out.ensureCapacity(bitmapBytes);
+            System.arraycopy(bitmap, 0, out.buffer, out.position, bitmapBytes);
+            out.position += bitmapBytes;
+        }
+
+        int previous = -1;
+        for (int f = 0; f < flagCount; f++) {
+            out.writeVarint(flagged[f] - previous);
+            previous = flagged[f];
+        }
+
+        byte[] snapshot = new byte[out.position];
+        System.arraycopy(out.buffer, 0, snapshot, 0, out.position);
+        return snapshot;
+    }
+
+    // Writes the set bits of the mine bitmap as gaps from the one before, giving up past limit bytes
+    private boolean writeGaps(byte[] bitmap, int limit) {
+        int previous = -1;
+        for (int b = 0; b < bitmap.length; b++) {
+            int bits = bitmap[b] & 0xFF;
+            while (bits != 0) {
+                int index = (b << 3) + Integer.numberOfTrailingZeros(bits);
+                writeVarint(index - previous);
+                previous = index;
+                if (position > limit) {
+                    return false;
+                }
+                bits &= bits - 1;
+            }
+        }
+        return true;
+    }
+
+    // Writes the uncovered bitmap as runs, giving up as soon as they pass limit bytes
+    private boolean writeRuns(byte[] bitmap, int squares, int limit) {
+        int runStart = 0;
+        int previousBit = 0;
+        for (int base = 0; base < squares; base += 8) {
+            int width = Math.min(8, squares - base);
+            int bits = bitmap[base >>> 3] & 0xFF;
+            int boundaries = (bits ^ ((bits << 1) | previousBit)) & ((1 << width) - 1);
+            previousBit = (bits >>> (width - 1)) & 1;
+            while (boundaries != 0) {
+                int index = base + Integer.numberOfTrailingZeros(boundaries);
+                writeVarint(index - runStart);
+                runStart = index;
+                if (position > limit) {
+                    return false;
+                }
+                boundaries &= boundaries - 1;
+            }
+        }
+        writeVarint(squares - runStart);
+        return position <= limit;
+    }
+
+    static GameBoard read(byte[] snapshot) {
+        GameSnapshot in = new GameSnapshot(snapshot);
+        if (snapshot.length < HEADER_BYTES || in.readShort() != MAGIC || in.readByte() != VERSION) {
+            throw new IllegalArgumentException("Not a game snapshot");
+        }
+        int rows = in.readInt();
+        int columns = in.readInt();
+        int minesPercent = in.readByte();
+        long seed = in.readLong();
+        int firstTapIndex = in.readInt();
+        int flags = in.readByte();
+        int strategy = in.readByte();
+        int uncoveredCells = in.readInt();
+        int flaggedCells = in.readInt();
+        if (rows <= 0 || columns <= 0 || (long) rows * columns > Integer.MAX_VALUE
+                || minesPercent > 100 || strategy >= STRATEGIES.length || firstTapIndex >= rows * columns
+                || uncoveredCells < 0 || flaggedCells < 0 || uncoveredCells + flaggedCells > rows * columns) {
+            throw new IllegalArgumentException("Corrupt game snapshot header");
+        }
+
+        GameBoard board = GameBoard.forRestore(rows, columns, minesPercent, seed,
+                (flags & SAFE_FIRST_CLICK) != 0, STRATEGIES[strategy]);
+        byte[] cells = board.cellBytes();
+        if ((flags & MINES_PLACED) != 0) {
+            int mineEncoding = in.readByte();
+            int[] mines;
+            if (mineEncoding == MINE_GAPS) {
+                mines = in.readMineGaps(board.getTotalMines(), cells.length);
+            } else if (mineEncoding == MINE_BITMAP) {
+                mines = in.readMineBitmap(board.getTotalMines(), cells.length);
+            } else {
+                throw new IllegalArgumentException("Unknown game snapshot mine encoding " + mineEncoding);
+            }
+            board.restoreMines(mines, firstTapIndex);
+        }
+
+        int encoding = in.readByte();
+        int uncovered;
+        if (encoding == UNCOVERED_RUNS) {
+            uncovered = in.readRuns(cells);
+        } else if (encoding == UNCOVERED_BITMAP) {
+            uncovered = in.readBitmap(cells);
+        } else {
+            throw new IllegalArgumentException("Unknown game snapshot encoding " + encoding);
+        }
+        if (uncovered != uncoveredCells) {
+            throw new IllegalArgumentException("Game snapshot uncovered count does not match its squares");
+        }
+
+        int index = -1;
+        for (int f = 0; f < flaggedCells; f++) {
+            long gap = in.readVarint();
+            if (gap <= 0 || gap >= cells.length - index || !board.restoreFlag(index + (int) gap)) {
+                throw new IllegalArgumentException("Corrupt game snapshot flags");
+            }
+            index += (int) gap;
+        }
+
+        board.restoreStatus(uncoveredCells, (flags & GAME_OVER) != 0, (flags & GAME_WON) != 0,
+                (flags & NO_GUESS) != 0);
+        return board;
+    }
+
+    private int[] readMineGaps(int count, int squares) {
+        int[] mines = new int[count];
+        int index = -1;
+        for (int m = 0; m < count; m++) {
+            long gap = readVarint();
+            if (gap <= 0 || gap >= squares - index) {
+                throw new IllegalArgumentException("Corrupt game snapshot mines");
+            }
+            index += (int) gap;
+            mines[m] = index;
+        }
+        return mines;
+    }
+
+    private int[] readMineBitmap(int count, int squares) {
+        int[] mines = new int[count];
+        int found = 0;
+        for (int base = 0; base < squares; base += 8) {
+            int bits = readByte();
+            if (Integer.bitCount(bits) > count - found) {
+                throw new IllegalArgumentException("Corrupt game snapshot mines");
+            }
+            while (bits != 0) {
+                int index = base + Integer.numberOfTrailingZeros(bits);
+                if (index >= squares) {
+                    throw new IllegalArgumentException("Corrupt game snapshot mines");
+                }
+                mines[found++] = index;
+                bits &= bits - 1;
+            }
+        }
+        if (found != count) {
+            throw new IllegalArgumentException("Game snapshot mine count does not match the board");
+        }
+        return mines;
+    }
+
+    // Squares start covered, so only the uncovered runs are written; returns the squares uncovered
+    private int readRuns(byte[] cells) {
+        int index = 0;
+        int uncovered = 0;
+        boolean inUncovered = false;
+        while (index < cells.length) {
+            long length = readVarint();
+            if (length > cells.length - index || (length == 0 && index > 0)) {
+                throw new IllegalArgumentException("Corrupt game snapshot runs");
+            }
+            int end = index + (int) length;
+            if (inUncovered) {
+                uncovered += end - index;
+                for (; index < end; index++) {
+                    cells[index] |= GameBoard.UNCOVERED;
+                }
+            }
+            index = end;
+            inUncovered = !inUncovered;
+        }
+        return uncovered;
+    }
+
+    private int readBitmap(byte[] cells) {
+        int uncovered = 0;
+        for (int base = 0; base < cells.length; base += 8) {
+            int bits = readByte();
+            uncovered += Integer.bitCount(bits);
+            if (bits == 0xFF && base + 8 <= cells.length) {
+                for (int index = base; index < base + 8; index++) {
+                    cells[index] |= GameBoard.UNCOVERED;
+                }
+                continue;
+            }
+            // Mostly empty or full bytes on a real board, so walk only the set bits
+            while (bits != 0) {
+                int index = base + Integer.numberOfTrailingZeros(bits);
+                if (index >= cells.length) {
+                    throw new IllegalArgumentException("Corrupt game snapshot bitmap");
+                }
+                cells[index] |= GameBoard.UNCOVERED;
+                bits &= bits - 1;
+            }
+        }
+        return uncovered;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (position + extra > buffer.length) {
+            byte[] grown = new byte[Math.max(position + extra, buffer.length * 2)];
+            System.arraycopy(buffer, 0, grown, 0, position);
+            buffer = grown;
+        }
+    }
+
+    private void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeShort(int value) {
+        writeByte(value >>> 8);
+        writeByte(value);
+    }
+
+    private void writeInt(int value) {
+        writeShort(value >>> 16);
+        writeShort(value);
+    }
+
+    private void writeLong(long value) {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    // 7 bits per byte, low bits first, high bit set on every byte but the last
+    private void writeVarint(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private int readByte() {
+        if (position >= buffer.length) {
+            throw new IllegalArgumentException("Truncated game snapshot");
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    private int readShort() {
+        return (readByte() << 8) | readByte();
+    }
+
+    private int readInt() {
+        return (readShort() << 16) | readShort();
+    }
+
+    private long readLong() {
+        return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+    }
+
+    private long readVarint() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Corrupt game snapshot varint");
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.minesweeper;
+
+import java.util.Arrays;
+
+/*
+ mine layout stored as one bit per square in rows of 64-bit words,
+ used to count adjacent mines 64 squares at a time
+ */
+final class MineBitboard {
+
+    private final int rows;
+    private final int columns;
+    private final int wordsPerRow;
+    // Bits of the last word in a row that map to real columns
+    private final long lastWordMask;
+    private final long[] bits;
+
+    MineBitboard(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        this.wordsPerRow = (columns + 63) >>> 6;
+        this.lastWordMask = (columns & 63) == 0 ? -1L : (1L << columns) - 1;
+        this.bits = new long[rows * wordsPerRow];
+    }
+
+    void clear() {
+        Arrays.fill(bits, 0L);
+    }
+
+    void set(int row, int col) {
+        bits[row * wordsPerRow + (col >>> 6)] |= 1L << col;
+    }
+
+    boolean get(int row, int col) {
+        return (bits[row * wordsPerRow + (col >>> 6)] & (1L << col)) != 0;
+    }
+
+    /*
+     ORs the adjacent mine count of every non-mine square in rows [fromRow, toRow) into the low
+     bits of the packed cell array. The 8 neighbour masks of a word are summed with a bit-sliced
+     adder, so each bit position of s0..s3 holds one binary digit of that square's count.
+     */
+    void writeAdjacentCounts(byte[] cells, int fromRow, int toRow) {
+        for (int row = fromRow; row < toRow; row++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                long s0 = 0;
+                long s1 = 0;
+                long s2 = 0;
+                long s3 = 0;
+                long carry;
+                long carry2;
+                long v;
+
+                for (int dr = -1; dr <= 1; dr++) {
+                    int r = row + dr;
+                    if (r < 0 || r >= rows) {
+                        continue;
+                    }
+                    long center = word(r, w);
+                    long west = (center << 1) | (word(r, w - 1) >>> 63);
+                    long east = (center >>> 1) | (word(r, w + 1) << 63);
+
+                    for (int k = 0; k < 3; k++) {
+                        if (k == 0) {
+                            v = west;
+                        } else if (k == 1) {
+                            // The square itself is not its own neighbour
+                            if (dr == 0) {
+                                continue;
+                            }
+                            v = center;
+                        } else {
+                            v = east;
+                        }
+                        carry = s0 & v;
+                        s0 ^= v;
+                        carry2 = s1 & carry;
+                        s1 ^= carry;
+                        s3 |= s2 & carry2;
+                        s2 ^= carry2;
+                    }
+                }
+
+                // Only squares with a non-zero count and no mine need writing
+                long pending = (s0 | s1 | s2 | s3) & ~word(row, w);
+                if (w == wordsPerRow - 1) {
+                    pending &= lastWordMask;
+                }
+                int base = row * columns + (w << 6);
+                while (pending != 0) {
+                    int bit = Long.numberOfTrailingZeros(pending);
+                    pending &= pending - 1;
+                    int count = (int) ((s0 >>> bit) & 1)
+                            | (int) ((s1 >>> bit) & 1) << 1
+                            | (int) ((s2 >>> bit) & 1) << 2
+                            | (int) ((s3 >>> bit) & 1) << 3;
+                    cells[base + bit] |= (byte) count;
+                }
+            }
+        }
+    }
+
+    private long word(int row, int w) {
+        if (w < 0 || w >= wordsPerRow) {
+            return 0L;
+        }
+        return bits[row * wordsPerRow + w];
+    }
+}
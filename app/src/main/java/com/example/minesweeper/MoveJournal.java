@@ -0,0 +1,247 @@
+package com.example.minesweeper;
+
+import java.io.File;
+import java.io.IOException;
+
+/*
+ records every move on a GameBoard so it can be undone, redone and replayed from the seed.
+
+ Each move is one record in a MoveLog, all varints. It starts with (row * columns + col) << 2 | op.
+ A flag needs nothing more, since undoing it is another toggle. A reveal or chord does not list
+ what it uncovered either: undo runs the move's flood again from the same square over the board
+ as the move left it, which reaches exactly those squares if it knows where the flood stopped.
+ It stopped at flags, which are still there, and at squares that were already uncovered, which
+ look like the rest. So the record holds those stops, a count and then zigzag distances: the
+ border the move shared with earlier moves, usually nothing, never the area it opened. The
+ flagged mines that an ending move showed come last, also as zigzag distances. Nothing is
+ kept per square, and the board is never copied. The mines stay where they are when the first
+ reveal is undone; replay() rebuilds any earlier position from the seed instead.
+ */
+public class MoveJournal {
+
+    private static final int OP_REVEAL = 0;
+    private static final int OP_CHORD = 1;
+    private static final int OP_FLAG = 2;
+
+    // Capacity of the record buffer kept between moves, as in CellChangeSet
+    private static final int KEPT_CAPACITY = 1 << 16;
+
+    private final GameBoard board;
+    private final int columns;
+    private final MoveLog log;
+    // Values of the record being written
+    private int[] record = new int[64];
+    private int recordSize;
+    // Stops of the move being recorded, then of the move being undone
+    private final CellChangeSet newStops = new CellChangeSet();
+    private int[] stops = new int[16];
+
+    public MoveJournal(GameBoard board) {
+        this(board, null);
+    }
+
+    // Once the log passes MoveLog.SPILL_BYTES it moves to a memory-mapped spillFile, which the
+    // journal deletes on close(); it must not be shared with another journal
+    public MoveJournal(GameBoard board, File spillFile) {
+        this.board = board;
+        this.columns = board.getColumns();
+        this.log = new MoveLog(spillFile);
+    }
+
+    public boolean revealCell(int row, int col) {
+        boolean lost = board.revealCell(row, col);
+        record(row, col, OP_REVEAL);
+        return lost;
+    }
+
+    public boolean chord(int row, int col) {
+        boolean lost = board.chord(row, col);
+        record(row, col, OP_CHORD);
+        return lost;
+    }
+
+    public void toggleFlag(int row, int col) {
+        board.toggleFlag(row, col);
+        record(row, col, OP_FLAG);
+    }
+
+    // Moves that changed nothing are not recorded, so every entry has something to undo
+    private void record(int row, int col, int op) {
+        CellChangeSet changes = board.getLastChanges();
+        if (changes.size() == 0) {
+            return;
+        }
+        recordSize = 0;
+        put((row * columns + col) << 2 | op);
+        if (op != OP_FLAG) {
+            board.collectStops(op == OP_CHORD ? row * columns + col : -1, newStops);
+            put(newStops.size());
+            int previous = 0;
+            for (int k = 0; k < newStops.size(); k++) {
+                put(zigzag(newStops.get(k) - previous));
+                previous = newStops.get(k);
+            }
+            // The move ended the game and uncovered these flagged mines with the rest
+            if (board.isGameFinished()) {
+                CellChangeSet shownFlags = board.getShownFlags();
+                previous = 0;
+                for (int f = 0; f < shownFlags.size(); f++) {
+                    put(zigzag(shownFlags.get(f) - previous));
+                    previous = shownFlags.get(f);
+                }
+            }
+        }
+        try {
+            log.append(record, recordSize);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not extend the move log", e);
+        }
+        if (record.length > KEPT_CAPACITY) {
+            record = new int[64];
+        }
+    }
+
+    private void put(int value) {
+        if (recordSize == record.length) {
+            int[] grown = new int[recordSize * 2];
+            System.arraycopy(record, 0, grown, 0, recordSize);
+            record = grown;
+        }
+        record[recordSize++] = value;
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public boolean canUndo() {
+        return log.hasPrevious();
+    }
+
+    public boolean canRedo() {
+        return log.hasNext();
+    }
+
+    // Takes back the last move; the squares it changed are in board.getLastChanges()
+    public void undo() {
+        if (!log.hasPrevious()) {
+            return;
+        }
+        int entry = log.previous();
+        int index = entry >>> 2;
+        if ((entry & 0x03) == OP_FLAG) {
+            board.toggleFlag(index / columns, index % columns);
+            return;
+        }
+
+        int stopCount = log.nextValue();
+        if (stopCount > stops.length) {
+            stops = new int[Math.max(stopCount, stops.length * 2)];
+        }
+        int stop = 0;
+        for (int k = 0; k < stopCount; k++) {
+            stop += unzigzag(log.nextValue());
+            stops[k] = stop;
+        }
+        board.undoMove(index, (entry & 0x03) == OP_CHORD, stops, stopCount);
+        int mine = 0;
+        while (log.hasNextValue()) {
+            mine += unzigzag(log.nextValue());
+            board.restoreFlag(mine);
+        }
+    }
+
+    // Plays the last undone move again; it changes the same squares as the first time, so its
+    // record is already right
+    public void redo() {
+        if (!log.hasNext()) {
+            return;
+        }
+        apply(board, log.next());
+    }
+
+    private static boolean apply(GameBoard target, int entry) {
+        int index = entry >>> 2;
+        int row = index / target.getColumns();
+        int col = index % target.getColumns();
+        switch (entry & 0x03) {
+            case OP_CHORD:
+                return target.chord(row, col);
+            case OP_FLAG:
+                target.toggleFlag(row, col);
+                return false;
+            default:
+                return target.revealCell(row, col);
+        }
+    }
+
+    /*
+     rebuilds the position after the first moves entries on a new board from the seed; the
+     board is built the same way as the journalled one, with the seed its mines were placed with
+     */
+    public GameBoard replay(int moves) {
+        GameBoard replayed = new GameBoard(board.getRows(), columns, board.getMinesPercent(), board.getSeed(),
+                board.isSafeFirstClick(), board.getAdjacencyStrategy());
+        // Place the mines around the original first tap, which an undone first reveal may not repeat
+        if (board.areMinesPlaced() && !replayed.areMinesPlaced()) {
+            replayed.restoreMines(board.getFirstTapIndex());
+        }
+        replay(replayed, log.toByteArray(), moves);
+        return replayed;
+    }
+
+    // Applies the first moves entries of a log from toByteArray() to a board built with the same
+    // settings and seed as the one the log was recorded on
+    public static void replay(GameBoard target, byte[] moveLog, int moves) {
+        int[] position = new int[1];
+        for (int m = 0; m < moves && position[0] < moveLog.length; m++) {
+            // Each record is its length, its values, then the length again
+            int bodyBytes = readVarint(moveLog, position);
+            int bodyStart = position[0];
+            apply(target, readVarint(moveLog, position));
+            position[0] = bodyStart + bodyBytes;
+            readVarint(moveLog, position);
+        }
+    }
+
+    private static int readVarint(byte[] bytes, int[] position) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = bytes[position[0]++];
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    // The moves played so far, with what they uncovered, for replay()
+    public byte[] toByteArray() {
+        return log.toByteArray();
+    }
+
+    public int getMoveCount() {
+        return log.size();
+    }
+
+    public int getLogBytes() {
+        return log.byteLength();
+    }
+
+    public boolean isSpilled() {
+        return log.isSpilled();
+    }
+
+    // Closes and deletes the spill file
+    public void close() {
+        try {
+            log.close();
+        } catch (IOException e) {
+            // Nothing is lost, the file was only a spill area
+        }
+    }
+}
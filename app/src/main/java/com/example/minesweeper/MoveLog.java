@@ -0,0 +1,193 @@
+package com.example.minesweeper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/*
+ append-only sequence of records of unsigned varints, with a cursor that can step both ways.
+
+ A varint is 7 bits per byte, low bits first, with the high bit set on every byte but the last,
+ so the byte before any value always has its high bit clear. Each record is framed by the byte
+ length of its values, written before and after them, so the cursor steps over a whole record
+ in either direction without an offset table. Records past the cursor are kept for redo until
+ the next append overwrites them. The log lives on the heap until it reaches SPILL_BYTES, then
+ moves to a memory-mapped file that grows a region at a time.
+ */
+final class MoveLog {
+
+    static final int SPILL_BYTES = 64 * 1024;
+    private static final int MAP_REGION_BYTES = 1 << 20;
+
+    private final File spillFile;
+    private ByteBuffer bytes = ByteBuffer.allocate(1024);
+    private FileChannel channel;
+    // Bytes up to the cursor, and up to the end of what can be redone
+    private int cursor;
+    private int length;
+    private int count;
+    private int countToEnd;
+    // Values of the record the cursor last stepped over, for nextValue()
+    private int readPosition;
+    private int readEnd;
+
+    // spillFile may be null to keep the whole log on the heap
+    MoveLog(File spillFile) {
+        this.spillFile = spillFile;
+    }
+
+    // Appends the first count values as one record at the cursor, dropping anything that could
+    // have been redone
+    void append(int[] values, int count) throws IOException {
+        int bodyBytes = 0;
+        for (int v = 0; v < count; v++) {
+            bodyBytes += varintBytes(values[v]);
+        }
+        ensureCapacity(cursor + bodyBytes + 2 * varintBytes(bodyBytes));
+        put(bodyBytes);
+        for (int v = 0; v < count; v++) {
+            put(values[v]);
+        }
+        put(bodyBytes);
+        length = cursor;
+        this.count++;
+        countToEnd = this.count;
+    }
+
+    private void put(int value) {
+        while ((value & ~0x7F) != 0) {
+            bytes.put(cursor++, (byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        bytes.put(cursor++, (byte) value);
+    }
+
+    private static int varintBytes(int value) {
+        return value == 0 ? 1 : (38 - Integer.numberOfLeadingZeros(value)) / 7;
+    }
+
+    // Steps the cursor back over the last record and returns its first value; nextValue() reads on
+    int previous() {
+        int trailer = cursor - 1;
+        while (trailer > 0 && (bytes.get(trailer - 1) & 0x80) != 0) {
+            trailer--;
+        }
+        int bodyBytes = decode(trailer);
+        readEnd = trailer;
+        readPosition = trailer - bodyBytes;
+        // Back over the leading length too, which is the same varint as the trailing one
+        cursor = readPosition - (cursor - trailer);
+        count--;
+        return nextValue();
+    }
+
+    // Steps the cursor forward over the next record, the one previous() last stepped back over,
+    // and returns its first value
+    int next() {
+        int bodyBytes = decode(cursor);
+        int lengthBytes = varintBytes(bodyBytes);
+        readPosition = cursor + lengthBytes;
+        readEnd = readPosition + bodyBytes;
+        cursor = readEnd + lengthBytes;
+        count++;
+        return nextValue();
+    }
+
+    // Whether the record last stepped over has values left for nextValue()
+    boolean hasNextValue() {
+        return readPosition < readEnd;
+    }
+
+    int nextValue() {
+        int value = decode(readPosition);
+        while ((bytes.get(readPosition) & 0x80) != 0) {
+            readPosition++;
+        }
+        readPosition++;
+        return value;
+    }
+
+    private int decode(int position) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = bytes.get(position++);
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    boolean hasPrevious() {
+        return cursor > 0;
+    }
+
+    boolean hasNext() {
+        return cursor < length;
+    }
+
+    // Records before the cursor
+    int size() {
+        return count;
+    }
+
+    int sizeWithRedo() {
+        return countToEnd;
+    }
+
+    int byteLength() {
+        return cursor;
+    }
+
+    boolean isSpilled() {
+        return channel != null;
+    }
+
+    // The records before the cursor, as framed varints
+    byte[] toByteArray() {
+        byte[] copy = new byte[cursor];
+        ByteBuffer view = bytes.duplicate();
+        view.position(0);
+        view.get(copy);
+        return copy;
+    }
+
+    private void ensureCapacity(int capacity) throws IOException {
+        if (capacity <= bytes.capacity()) {
+            return;
+        }
+        if (channel == null && (spillFile == null || capacity <= SPILL_BYTES)) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(capacity, bytes.capacity() * 2));
+            System.arraycopy(bytes.array(), 0, grown.array(), 0, length);
+            bytes = grown;
+            return;
+        }
+
+        boolean spilling = channel == null;
+        if (spilling) {
+            channel = new RandomAccessFile(spillFile, "rw").getChannel();
+        }
+        // Mapping past the end of the file extends it; a bigger mapping of the same file
+        // already holds everything written through the old one
+        int mapped = (capacity / MAP_REGION_BYTES + 1) * MAP_REGION_BYTES;
+        MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, mapped);
+        if (spilling) {
+            map.duplicate().put(bytes.array(), 0, length);
+        }
+        bytes = map;
+    }
+
+    // Also deletes the spill file, which the caller may have created before the log needed it
+    void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        if (spillFile != null) {
+            spillFile.delete();
+        }
+    }
+}
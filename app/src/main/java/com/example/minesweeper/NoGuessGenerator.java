@@ -0,0 +1,170 @@
+package com.example.minesweeper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ finds seeds whose boards can be solved by pure logic from a given first tap.
+
+ Every worker thread builds candidate boards from its own stream of seeds, opens the first tap
+ and lets the Solver play. The first worker to clear a board publishes its seed and the others
+ stop at their next check. If no candidate is found before the timeout the base seed is used,
+ which still gives a board with a safe first tap, so the wait for a board stays bounded.
+
+ Because placement is deterministic for a seed and a first tap, the seed alone reproduces the
+ board: GameBoard just places its mines with the seed found here.
+ */
+public class NoGuessGenerator {
+
+    public static final long DEFAULT_TIMEOUT_MILLIS = 1000;
+
+    /*
+     outcome of one search
+     */
+    public static final class Result {
+        public final long seed;
+        // False when the search timed out and seed is the plain fallback
+        public final boolean noGuess;
+        public final int candidatesTried;
+        public final long elapsedNanos;
+
+        Result(long seed, boolean noGuess, int candidatesTried, long elapsedNanos) {
+            this.seed = seed;
+            this.noGuess = noGuess;
+            this.candidatesTried = candidatesTried;
+            this.elapsedNanos = elapsedNanos;
+        }
+    }
+
+    private final int threads;
+    private final ExecutorService executor;
+
+    public NoGuessGenerator() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public NoGuessGenerator(int threads) {
+        this.threads = Math.max(1, threads);
+        this.executor = Executors.newFixedThreadPool(this.threads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "no-guess-generator-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    public Result findSeed(int rows, int columns, int minesPercent, int firstRow, int firstCol,
+                           long baseSeed, long timeoutMillis) {
+        final long start = System.nanoTime();
+        final long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        final AtomicBoolean done = new AtomicBoolean();
+        final long[] found = new long[1];
+        final AtomicInteger tried = new AtomicInteger();
+        final CountDownLatch finished = new CountDownLatch(1);
+
+        List<Future<?>> workers = new ArrayList<>();
+        for (int w = 0; w < threads; w++) {
+            final int worker = w;
+            workers.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    // Worker w tries baseSeed-derived seeds w, w + threads, w + 2 * threads, ...
+                    for (long k = worker; !done.get() && System.nanoTime() < deadline; k += threads) {
+                        long seed = mix(baseSeed + k);
+                        tried.incrementAndGet();
+                        GameBoard board = new GameBoard(rows, columns, minesPercent, seed, true);
+                        if (isSolvable(board, firstRow, firstCol, done) && done.compareAndSet(false, true)) {
+                            found[0] = seed;
+                            finished.countDown();
+                            return;
+                        }
+                    }
+                }
+            }));
+        }
+
+        boolean success;
+        try {
+            success = finished.await(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            success = false;
+        }
+        // Stop the losers; a worker that wins right now loses the race to this flag
+        if (!done.compareAndSet(false, true)) {
+            success = true;
+        }
+        for (Future<?> future : workers) {
+            future.cancel(false);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        if (success) {
+            try {
+                finished.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new Result(found[0], true, tried.get(), elapsed);
+        }
+        return new Result(baseSeed, false, tried.get(), elapsed);
+    }
+
+    /*
+     plays the board from the first tap using only the solver's safe squares;
+     true if that wins, false on a forced guess or when cancel is raised
+     */
+    public static boolean isSolvable(GameBoard board, int firstRow, int firstCol, AtomicBoolean cancel) {
+        Solver solver = new Solver(board);
+        int columns = board.getColumns();
+        int[] pending = new int[64];
+        int size = 0;
+
+        board.revealCell(firstRow, firstCol);
+        solver.update(board.getLastChanges());
+        while (!board.isGameFinished()) {
+            if (cancel != null && cancel.get()) {
+                return false;
+            }
+            CellChangeSet safe = solver.getSafeCells();
+            for (int k = 0; k < safe.size(); k++) {
+                if (size == pending.length) {
+                    int[] grown = new int[size * 2];
+                    System.arraycopy(pending, 0, grown, 0, size);
+                    pending = grown;
+                }
+                pending[size++] = safe.get(k);
+            }
+            if (size == 0) {
+                return false;
+            }
+            int index = pending[--size];
+            board.revealCell(index / columns, index % columns);
+            solver.update(board.getLastChanges());
+        }
+        return board.isGameWon();
+    }
+
+    private static long mix(long z) {
+        // SplitMix64 finalizer, so neighbouring k give unrelated seeds
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
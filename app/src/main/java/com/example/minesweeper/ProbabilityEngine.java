@@ -0,0 +1,529 @@
+package com.example.minesweeper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ mine probability of every covered square, given what the player can see and totalMines.
+
+ Covered squares next to an uncovered number form the frontier. The frontier splits into
+ components that share no constraint, and each component is enumerated on its own (in parallel),
+ counting its solutions per number of mines it holds. The components are then combined with the
+ squares away from the frontier: a combination that puts T mines on the frontier is weighted by
+ C(squares off the frontier, totalMines - T). Component results are memoised by their exact
+ cells and constraints, so after a move only the components it changed are enumerated again.
+ Player flags are not trusted and count as covered.
+
+ The result is exact only while every component has at most maxComponentCells squares. A larger
+ one is skipped: its squares are counted as off the frontier, so the numbers around them are
+ ignored and every square of the board gets an approximate value. isExact() and
+ getSkippedComponentCount() say whether the last compute() had to do that.
+ */
+public class ProbabilityEngine {
+
+    // Components with more squares than this are skipped, making the result approximate.
+    // Enumeration time grows exponentially with it, so interactive use keeps it small
+    public static final int MAX_COMPONENT_CELLS = 48;
+
+    private final GameBoard board;
+    private final int rows;
+    private final int columns;
+    private final int totalMines;
+    private final int maxComponentCells;
+    private final double[] probabilities;
+    private Map<ComponentKey, ComponentResult> cache = new HashMap<>();
+    private int componentCount;
+    private int componentsEnumerated;
+    private int skippedComponents;
+    private int skippedCells;
+
+    public ProbabilityEngine(GameBoard board, int totalMines) {
+        this(board, totalMines, MAX_COMPONENT_CELLS);
+    }
+
+    public ProbabilityEngine(GameBoard board, int totalMines, int maxComponentCells) {
+        this.board = board;
+        this.rows = board.getRows();
+        this.columns = board.getColumns();
+        this.totalMines = totalMines;
+        this.maxComponentCells = maxComponentCells;
+        this.probabilities = new double[rows * columns];
+    }
+
+    /*
+     cells and constraints of one component, in a canonical order so equal components compare equal
+     */
+    private static final class ComponentKey {
+        final int[] cells;
+        // For each constraint: mine count, member count, then the members as positions in cells
+        final int[] constraints;
+        final int hash;
+
+        ComponentKey(int[] cells, int[] constraints) {
+            this.cells = cells;
+            this.constraints = constraints;
+            this.hash = 31 * Arrays.hashCode(cells) + Arrays.hashCode(constraints);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof ComponentKey)) {
+                return false;
+            }
+            ComponentKey key = (ComponentKey) other;
+            return hash == key.hash && Arrays.equals(cells, key.cells)
+                    && Arrays.equals(constraints, key.constraints);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /*
+     solution counts of one component: ways[m] solutions hold m mines, and cellWays[m][i] of those
+     put a mine on cells[i]. Both are scaled by the same factor, which cancels out when combining
+     */
+    private static final class ComponentResult {
+        double[] ways;
+        double[][] cellWays;
+    }
+
+    private class Enumeration extends RecursiveAction {
+        // ForkJoinTask is Serializable; these tasks never are
+        private static final long serialVersionUID = 1L;
+
+        private final ComponentKey key;
+        private ComponentResult result;
+
+        Enumeration(ComponentKey key) {
+            this.key = key;
+        }
+
+        @Override
+        protected void compute() {
+            result = enumerate(key);
+        }
+    }
+
+    // Recomputes every probability; covered squares get a value in [0, 1], others NaN
+    public double[] compute() {
+        Arrays.fill(probabilities, Double.NaN);
+        int cellCount = rows * columns;
+
+        // Frontier squares, joined into components through the constraints they share
+        int[] parent = new int[cellCount];
+        Arrays.fill(parent, -1);
+        int covered = 0;
+        for (int index = 0; index < cellCount; index++) {
+            if (isCovered(index)) {
+                covered++;
+            } else if (isConstraint(index)) {
+                int first = -1;
+                int row = index / columns;
+                int col = index % columns;
+                for (int i = -1; i <= 1; i++) {
+                    for (int j = -1; j <= 1; j++) {
+                        int neighbour = neighbourIndex(row + i, col + j);
+                        if (neighbour < 0 || !isCovered(neighbour)) {
+                            continue;
+                        }
+                        if (parent[neighbour] < 0) {
+                            parent[neighbour] = neighbour;
+                        }
+                        if (first < 0) {
+                            first = neighbour;
+                        } else {
+                            union(parent, first, neighbour);
+                        }
+                    }
+                }
+            }
+        }
+
+        // Group frontier squares by component root, in index order
+        Map<Integer, List<Integer>> groups = new HashMap<>();
+        List<Integer> roots = new ArrayList<>();
+        for (int index = 0; index < cellCount; index++) {
+            if (parent[index] >= 0) {
+                int root = find(parent, index);
+                List<Integer> group = groups.get(root);
+                if (group == null) {
+                    group = new ArrayList<>();
+                    groups.put(root, group);
+                    roots.add(root);
+                }
+                group.add(index);
+            }
+        }
+
+        List<ComponentKey> keys = new ArrayList<>();
+        int offFrontier = covered;
+        skippedComponents = 0;
+        skippedCells = 0;
+        for (int r = 0; r < roots.size(); r++) {
+            List<Integer> group = groups.get(roots.get(r));
+            if (group.size() > maxComponentCells) {
+                skippedComponents++;
+                skippedCells += group.size();
+                continue;
+            }
+            keys.add(buildKey(group));
+            offFrontier -= group.size();
+        }
+        componentCount = keys.size();
+
+        // Enumerate the components not already memoised, in parallel
+        Map<ComponentKey, ComponentResult> results = new HashMap<>();
+        List<Enumeration> tasks = new ArrayList<>();
+        for (int k = 0; k < keys.size(); k++) {
+            ComponentKey key = keys.get(k);
+            ComponentResult cached = cache.get(key);
+            if (cached != null) {
+                results.put(key, cached);
+            } else if (!results.containsKey(key)) {
+                results.put(key, null);
+                tasks.add(new Enumeration(key));
+            }
+        }
+        componentsEnumerated = tasks.size();
+        if (!tasks.isEmpty()) {
+            ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+            for (int t = 0; t < tasks.size(); t++) {
+                results.put(tasks.get(t).key, tasks.get(t).result);
+            }
+        }
+        // Keep only what this position uses, so the cache never outgrows the board
+        cache = results;
+
+        combine(keys, results, offFrontier);
+        return probabilities;
+    }
+
+    private ComponentKey buildKey(List<Integer> group) {
+        int[] cells = new int[group.size()];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = group.get(i);
+        }
+
+        // Every constraint touching the component, each listed once, in index order
+        List<Integer> constraintIndices = new ArrayList<>();
+        for (int i = 0; i < cells.length; i++) {
+            int row = cells[i] / columns;
+            int col = cells[i] % columns;
+            for (int di = -1; di <= 1; di++) {
+                for (int dj = -1; dj <= 1; dj++) {
+                    int neighbour = neighbourIndex(row + di, col + dj);
+                    if (neighbour >= 0 && isConstraint(neighbour) && !constraintIndices.contains(neighbour)) {
+                        constraintIndices.add(neighbour);
+                    }
+                }
+            }
+        }
+        Integer[] sorted = constraintIndices.toArray(new Integer[0]);
+        Arrays.sort(sorted);
+
+        int[] buffer = new int[sorted.length * 10];
+        int size = 0;
+        for (int c = 0; c < sorted.length; c++) {
+            int index = sorted[c];
+            int row = index / columns;
+            int col = index % columns;
+            int countPosition = size + 1;
+            buffer[size] = board.getAdjacentMines(row, col);
+            buffer[countPosition] = 0;
+            size += 2;
+            for (int di = -1; di <= 1; di++) {
+                for (int dj = -1; dj <= 1; dj++) {
+                    int neighbour = neighbourIndex(row + di, col + dj);
+                    if (neighbour >= 0 && isCovered(neighbour)) {
+                        buffer[size++] = Arrays.binarySearch(cells, neighbour);
+                        buffer[countPosition]++;
+                    }
+                }
+            }
+        }
+        return new ComponentKey(cells, Arrays.copyOf(buffer, size));
+    }
+
+    private ComponentResult enumerate(ComponentKey key) {
+        int n = key.cells.length;
+
+        // Unpack constraints and index which constraints each cell belongs to
+        List<int[]> members = new ArrayList<>();
+        List<Integer> values = new ArrayList<>();
+        for (int p = 0; p < key.constraints.length; ) {
+            int value = key.constraints[p];
+            int count = key.constraints[p + 1];
+            members.add(Arrays.copyOfRange(key.constraints, p + 2, p + 2 + count));
+            values.add(value);
+            p += 2 + count;
+        }
+        int constraintCount = members.size();
+        int[] target = new int[constraintCount];
+        int[] unassigned = new int[constraintCount];
+        int[][] cellConstraints = new int[n][];
+        int[] cellConstraintCount = new int[n];
+        for (int c = 0; c < constraintCount; c++) {
+            target[c] = values.get(c);
+            unassigned[c] = members.get(c).length;
+            for (int cell : members.get(c)) {
+                cellConstraintCount[cell]++;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            cellConstraints[i] = new int[cellConstraintCount[i]];
+            cellConstraintCount[i] = 0;
+        }
+        for (int c = 0; c < constraintCount; c++) {
+            for (int cell : members.get(c)) {
+                cellConstraints[cell][cellConstraintCount[cell]++] = c;
+            }
+        }
+
+        ComponentResult result = new ComponentResult();
+        result.ways = new double[n + 1];
+        result.cellWays = new double[n + 1][n];
+        boolean[] assignment = new boolean[n];
+        search(0, 0, n, assignment, cellConstraints, target, unassigned, result);
+
+        // Scale so the largest count is 1; only ratios matter when combining
+        double max = 0;
+        for (double ways : result.ways) {
+            max = Math.max(max, ways);
+        }
+        if (max > 0) {
+            for (int m = 0; m <= n; m++) {
+                result.ways[m] /= max;
+                for (int i = 0; i < n; i++) {
+                    result.cellWays[m][i] /= max;
+                }
+            }
+        }
+        return result;
+    }
+
+    // Depth-first over the cells; target holds mines still needed by each constraint
+    private void search(int cell, int mines, int n, boolean[] assignment, int[][] cellConstraints,
+                        int[] target, int[] unassigned, ComponentResult result) {
+        if (cell == n) {
+            result.ways[mines]++;
+            for (int i = 0; i < n; i++) {
+                if (assignment[i]) {
+                    result.cellWays[mines][i]++;
+                }
+            }
+            return;
+        }
+        int[] constraints = cellConstraints[cell];
+        for (int value = 0; value <= 1; value++) {
+            boolean valid = true;
+            for (int c : constraints) {
+                unassigned[c]--;
+                target[c] -= value;
+                // Too many mines already, or too few squares left to reach the count
+                if (target[c] < 0 || target[c] > unassigned[c]) {
+                    valid = false;
+                }
+            }
+            if (valid) {
+                assignment[cell] = value == 1;
+                search(cell + 1, mines + value, n, assignment, cellConstraints, target, unassigned, result);
+                assignment[cell] = false;
+            }
+            for (int c : constraints) {
+                unassigned[c]++;
+                target[c] += value;
+            }
+        }
+    }
+
+    private void combine(List<ComponentKey> keys, Map<ComponentKey, ComponentResult> results, int offFrontier) {
+        int k = keys.size();
+        double[][] ways = new double[k][];
+        int maxFrontierMines = 0;
+        for (int c = 0; c < k; c++) {
+            ways[c] = results.get(keys.get(c)).ways;
+            maxFrontierMines += ways[c].length - 1;
+        }
+
+        // weight[t] is proportional to C(offFrontier, totalMines - t)
+        double[] weight = binomialWeights(offFrontier, totalMines, maxFrontierMines);
+
+        // prefix[c] convolves components before c, suffix[c] those from c on; each is rescaled
+        double[][] prefix = new double[k + 1][];
+        double[][] suffix = new double[k + 1][];
+        prefix[0] = new double[] {1};
+        suffix[k] = new double[] {1};
+        for (int c = 0; c < k; c++) {
+            prefix[c + 1] = convolve(prefix[c], ways[c]);
+        }
+        for (int c = k - 1; c >= 0; c--) {
+            suffix[c] = convolve(ways[c], suffix[c + 1]);
+        }
+
+        for (int c = 0; c < k; c++) {
+            ComponentResult result = results.get(keys.get(c));
+            double[] others = convolve(prefix[c], suffix[c + 1]);
+            int n = result.ways.length - 1;
+            // g[m]: weight of everything else when this component holds m mines
+            double[] g = new double[n + 1];
+            double total = 0;
+            for (int m = 0; m <= n; m++) {
+                for (int t = 0; t < others.length; t++) {
+                    g[m] += others[t] * weight[m + t];
+                }
+                total += result.ways[m] * g[m];
+            }
+            int[] cells = keys.get(c).cells;
+            for (int i = 0; i < cells.length; i++) {
+                double sum = 0;
+                for (int m = 0; m <= n; m++) {
+                    sum += result.cellWays[m][i] * g[m];
+                }
+                probabilities[cells[i]] = total > 0 ? sum / total : Double.NaN;
+            }
+        }
+
+        // Squares off the frontier share the remaining mines evenly
+        double[] all = prefix[k];
+        double total = 0;
+        double mineWeight = 0;
+        for (int t = 0; t < all.length; t++) {
+            double w = all[t] * weight[t];
+            total += w;
+            if (offFrontier > 0) {
+                mineWeight += w * (totalMines - t) / (double) offFrontier;
+            }
+        }
+        double offFrontierProbability = total > 0 ? mineWeight / total : Double.NaN;
+        for (int index = 0; index < rows * columns; index++) {
+            if (isCovered(index) && Double.isNaN(probabilities[index])) {
+                probabilities[index] = offFrontierProbability;
+            }
+        }
+    }
+
+    // C(n, total - t) for t in [0, maxT], divided by the largest of them; 0 where impossible
+    private static double[] binomialWeights(int n, int total, int maxT) {
+        double[] logWeight = new double[maxT + 1];
+        double[] weight = new double[maxT + 1];
+        double max = Double.NEGATIVE_INFINITY;
+        // Walk k = total - t downwards from total, using C(n, k - 1) = C(n, k) * k / (n - k + 1)
+        double log = 0;
+        boolean started = false;
+        for (int t = 0; t <= maxT; t++) {
+            int kk = total - t;
+            if (kk < 0 || kk > n) {
+                logWeight[t] = Double.NEGATIVE_INFINITY;
+                continue;
+            }
+            if (!started) {
+                log = 0;
+                started = true;
+            } else {
+                log += Math.log((double) (kk + 1) / (n - kk));
+            }
+            logWeight[t] = log;
+            max = Math.max(max, log);
+        }
+        for (int t = 0; t <= maxT; t++) {
+            weight[t] = logWeight[t] == Double.NEGATIVE_INFINITY ? 0 : Math.exp(logWeight[t] - max);
+        }
+        return weight;
+    }
+
+    private static double[] convolve(double[] a, double[] b) {
+        double[] out = new double[a.length + b.length - 1];
+        double max = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == 0) {
+                continue;
+            }
+            for (int j = 0; j < b.length; j++) {
+                out[i + j] += a[i] * b[j];
+            }
+        }
+        for (double value : out) {
+            max = Math.max(max, value);
+        }
+        if (max > 0) {
+            for (int i = 0; i < out.length; i++) {
+                out[i] /= max;
+            }
+        }
+        return out;
+    }
+
+    private static int find(int[] parent, int index) {
+        while (parent[index] != index) {
+            parent[index] = parent[parent[index]];
+            index = parent[index];
+        }
+        return index;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) {
+            parent[rootB] = rootA;
+        }
+    }
+
+    private int neighbourIndex(int row, int col) {
+        if (row < 0 || row >= rows || col < 0 || col >= columns) {
+            return -1;
+        }
+        return row * columns + col;
+    }
+
+    private boolean isCovered(int index) {
+        return board.getState(index / columns, index % columns) != GameBoard.CellState.UNCOVERED;
+    }
+
+    private boolean isConstraint(int index) {
+        int row = index / columns;
+        int col = index % columns;
+        return board.getState(row, col) == GameBoard.CellState.UNCOVERED
+                && !board.isMine(row, col) && board.getAdjacentMines(row, col) > 0;
+    }
+
+    public double getProbability(int row, int col) {
+        return probabilities[row * columns + col];
+    }
+
+    // Components in the last compute(), and how many of them were enumerated rather than memoised
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    public int getComponentsEnumerated() {
+        return componentsEnumerated;
+    }
+
+    // False when the last compute() skipped a component over the size limit
+    public boolean isExact() {
+        return skippedComponents == 0;
+    }
+
+    // Components the last compute() skipped, and the frontier squares in them
+    public int getSkippedComponentCount() {
+        return skippedComponents;
+    }
+
+    public int getSkippedCellCount() {
+        return skippedCells;
+    }
+}
@@ -7,11 +7,8 @@ import android.graphics.drawable.GradientDrawable;
 import android.os.Bundle;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.content.ContextCompat;
-import android.view.LayoutInflater;
 import android.view.View;
-import android.view.ViewGroup;
 import android.widget.Button;
-import android.widget.LinearLayout;
 import android.widget.RadioButton;
 import android.widget.RadioGroup;
 
@@ -20,16 +17,29 @@ import android.widget.RadioGroup;
  */
 public class SettingsActivity extends AppCompatActivity {
 
-    private static final String PREFS_NAME = "MinesweeperSettings";
-    private static final String KEY_ROWS = "rows";
-    private static final String KEY_COLUMNS = "columns";
-    private static final String KEY_MINES_PERCENT = "minesPercent";
-    private static final String KEY_COVERED_COLOR = "coveredColor";
-    private static final String KEY_UNCOVERED_COLOR = "uncoveredColor";
-    private static final String KEY_SUSPECTED_COLOR = "suspectedColor";
-    private static final String KEY_MINE_COLOR = "mineColor";
-
-    private SharedPreferences sharedPreferences;
+    // Radio button of each choice, in the same order as the values they stand for
+    private static final int[] ROWS_VALUES = {5, 6, 7, 8, 9, 10, 16, 30, 50, 100, 250, 500, 1000};
+    private static final int[] ROWS_IDS = {
+            R.id.rows5, R.id.rows6, R.id.rows7, R.id.rows8, R.id.rows9, R.id.rows10, R.id.rows16,
+            R.id.rows30, R.id.rows50, R.id.rows100, R.id.rows250, R.id.rows500, R.id.rows1000};
+    private static final int[] COLUMNS_VALUES = {5, 6, 7, 8, 9, 10, 16, 30, 50, 100, 250, 500, 1000};
+    private static final int[] COLUMNS_IDS = {
+            R.id.columns5, R.id.columns6, R.id.columns7, R.id.columns8, R.id.columns9, R.id.columns10,
+            R.id.columns16, R.id.columns30, R.id.columns50, R.id.columns100, R.id.columns250,
+            R.id.columns500, R.id.columns1000};
+    private static final int[] MINES_VALUES = {10, 15, 20};
+    private static final int[] MINES_IDS = {R.id.mines10, R.id.mines15, R.id.mines20};
+    // Colour swatches, index = saved colour index - 1, matching the palettes in GameSettings
+    private static final int[] COVERED_COLOR_IDS = {
+            R.id.coveredColor1, R.id.coveredColor2, R.id.coveredColor3, R.id.coveredColor4, R.id.coveredColor5};
+    private static final int[] UNCOVERED_COLOR_IDS = {
+            R.id.uncoveredColor1, R.id.uncoveredColor2, R.id.uncoveredColor3, R.id.uncoveredColor4,
+            R.id.uncoveredColor5};
+    private static final int[] SUSPECTED_COLOR_IDS = {
+            R.id.suspectedColor1, R.id.suspectedColor2, R.id.suspectedColor3, R.id.suspectedColor4,
+            R.id.suspectedColor5};
+    private static final int[] MINE_COLOR_IDS = {
+            R.id.mineColor1, R.id.mineColor2, R.id.mineColor3, R.id.mineColor4, R.id.mineColor5};
 
     private RadioGroup rowsRadioGroup;
     private RadioGroup columnsRadioGroup;
@@ -44,8 +54,6 @@ public class SettingsActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_settings);
 
-        sharedPreferences = getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-
         initializeViews();
         loadSettings();
 
@@ -69,57 +77,18 @@ public class SettingsActivity extends AppCompatActivity {
         mineColorRadioGroup = findViewById(R.id.mineColorRadioGroup);
         
         // Setup color swatches
-        setupColorSwatches(coveredColorRadioGroup, "covered_color");
-        setupColorSwatches(uncoveredColorRadioGroup, "uncovered_color");
-        setupColorSwatches(suspectedColorRadioGroup, "suspected_color");
-        setupColorSwatches(mineColorRadioGroup, "mine_color");
+        setupColorSwatches(coveredColorRadioGroup, GameSettings.COVERED_COLORS, COVERED_COLOR_IDS);
+        setupColorSwatches(uncoveredColorRadioGroup, GameSettings.UNCOVERED_COLORS, UNCOVERED_COLOR_IDS);
+        setupColorSwatches(suspectedColorRadioGroup, GameSettings.SUSPECTED_COLORS, SUSPECTED_COLOR_IDS);
+        setupColorSwatches(mineColorRadioGroup, GameSettings.MINE_COLORS, MINE_COLOR_IDS);
     }
     
-    private void setupColorSwatches(RadioGroup radioGroup, String colorType) {
-        for (int i = 1; i <= 5; i++) {
-            String resourceName = colorType + "_" + i;
-            int colorResId = getResources().getIdentifier(resourceName, "color", getPackageName());
-            int color = ContextCompat.getColor(this, colorResId);
-            
-            // Set IDs based on color type
-            int radioButtonId;
-            if (colorType.equals("covered_color")) {
-                switch(i) {
-                    case 1: radioButtonId = R.id.coveredColor1; break;
-                    case 2: radioButtonId = R.id.coveredColor2; break;
-                    case 3: radioButtonId = R.id.coveredColor3; break;
-                    case 4: radioButtonId = R.id.coveredColor4; break;
-                    case 5: radioButtonId = R.id.coveredColor5; break;
-                    default: radioButtonId = R.id.coveredColor1; break;
-                }
-            } else if (colorType.equals("uncovered_color")) {
-                switch(i) {
-                    case 1: radioButtonId = R.id.uncoveredColor1; break;
-                    case 2: radioButtonId = R.id.uncoveredColor2; break;
-                    case 3: radioButtonId = R.id.uncoveredColor3; break;
-                    case 4: radioButtonId = R.id.uncoveredColor4; break;
-                    case 5: radioButtonId = R.id.uncoveredColor5; break;
-                    default: radioButtonId = R.id.uncoveredColor1; break;
-                }
-            } else if (colorType.equals("suspected_color")) {
-                switch(i) {
-                    case 1: radioButtonId = R.id.suspectedColor1; break;
-                    case 2: radioButtonId = R.id.suspectedColor2; break;
-                    case 3: radioButtonId = R.id.suspectedColor3; break;
-                    case 4: radioButtonId = R.id.suspectedColor4; break;
-                    case 5: radioButtonId = R.id.suspectedColor5; break;
-                    default: radioButtonId = R.id.suspectedColor1; break;
-                }
-            } else {
-                switch(i) {
-                    case 1: radioButtonId = R.id.mineColor1; break;
-                    case 2: radioButtonId = R.id.mineColor2; break;
-                    case 3: radioButtonId = R.id.mineColor3; break;
-                    case 4: radioButtonId = R.id.mineColor4; break;
-                    case 5: radioButtonId = R.id.mineColor5; break;
-                    default: radioButtonId = R.id.mineColor1; break;
-                }
-            }
+    private void setupColorSwatches(RadioGroup radioGroup, int[] colorResIds, int[] radioButtonIds) {
+        // Same for every swatch
+        int size = (int) (56 * getResources().getDisplayMetrics().density); // 56dp
+        for (int i = 0; i < colorResIds.length; i++) {
+            int color = ContextCompat.getColor(this, colorResIds[i]);
+            int radioButtonId = radioButtonIds[i];
             
             // Create radio button to make it look like a color swatch
             RadioButton radioButton = new RadioButton(this);
@@ -135,7 +104,6 @@ public class SettingsActivity extends AppCompatActivity {
             radioButton.setBackground(drawable);
             
             // Set size
-            int size = (int) (56 * getResources().getDisplayMetrics().density); // 56dp
             RadioGroup.LayoutParams params = new RadioGroup.LayoutParams(size, size);
             params.setMargins(4, 4, 4, 4);
             radioButton.setLayoutParams(params);
@@ -174,60 +142,54 @@ public class SettingsActivity extends AppCompatActivity {
     }
 
     private void loadSettings() {
+        GameSettings settings = GameSettings.get(this);
+
         // Load and set rows (default: 8)
-        int rows = sharedPreferences.getInt(KEY_ROWS, 8);
-        setRadioGroupSelection(rowsRadioGroup, getRowsId(rows));
+        setRadioGroupSelection(rowsRadioGroup, lookup(ROWS_VALUES, ROWS_IDS, settings.rows, R.id.rows8));
 
         // Load and set columns (default: 8)
-        int columns = sharedPreferences.getInt(KEY_COLUMNS, 8);
-        setRadioGroupSelection(columnsRadioGroup, getColumnsId(columns));
+        setRadioGroupSelection(columnsRadioGroup,
+                lookup(COLUMNS_VALUES, COLUMNS_IDS, settings.columns, R.id.columns8));
 
         // Load and set mines percent (default: 15%)
-        int minesPercent = sharedPreferences.getInt(KEY_MINES_PERCENT, 15);
-        setRadioGroupSelection(minesRadioGroup, getMinesPercentId(minesPercent));
+        setRadioGroupSelection(minesRadioGroup,
+                lookup(MINES_VALUES, MINES_IDS, settings.minesPercent, R.id.mines15));
 
         // Load and set colors (default: 1 for all)
-        int coveredColor = sharedPreferences.getInt(KEY_COVERED_COLOR, 1);
-        int coveredColorId = getColorId(coveredColorRadioGroup, coveredColor);
-        setRadioGroupSelection(coveredColorRadioGroup, coveredColorId);
-        updateSwatchSelection(coveredColorRadioGroup, coveredColorId);
-
-        int uncoveredColor = sharedPreferences.getInt(KEY_UNCOVERED_COLOR, 1);
-        int uncoveredColorId = getColorId(uncoveredColorRadioGroup, uncoveredColor);
-        setRadioGroupSelection(uncoveredColorRadioGroup, uncoveredColorId);
-        updateSwatchSelection(uncoveredColorRadioGroup, uncoveredColorId);
-
-        int suspectedColor = sharedPreferences.getInt(KEY_SUSPECTED_COLOR, 1);
-        int suspectedColorId = getColorId(suspectedColorRadioGroup, suspectedColor);
-        setRadioGroupSelection(suspectedColorRadioGroup, suspectedColorId);
-        updateSwatchSelection(suspectedColorRadioGroup, suspectedColorId);
+        selectSwatch(coveredColorRadioGroup, COVERED_COLOR_IDS, settings.coveredColor);
+        selectSwatch(uncoveredColorRadioGroup, UNCOVERED_COLOR_IDS, settings.uncoveredColor);
+        selectSwatch(suspectedColorRadioGroup, SUSPECTED_COLOR_IDS, settings.suspectedColor);
+        selectSwatch(mineColorRadioGroup, MINE_COLOR_IDS, settings.mineColor);
+    }
 
-        int mineColor = sharedPreferences.getInt(KEY_MINE_COLOR, 1);
-        int mineColorId = getColorId(mineColorRadioGroup, mineColor);
-        setRadioGroupSelection(mineColorRadioGroup, mineColorId);
-        updateSwatchSelection(mineColorRadioGroup, mineColorId);
+    private void selectSwatch(RadioGroup group, int[] ids, int colorIndex) {
+        int id = colorIndex >= 1 && colorIndex <= ids.length ? ids[colorIndex - 1] : ids[0];
+        setRadioGroupSelection(group, id);
+        updateSwatchSelection(group, id);
     }
 
     private void saveSettings() {
-        SharedPreferences.Editor editor = sharedPreferences.edit();
+        SharedPreferences.Editor editor = getSharedPreferences(GameSettings.PREFS_NAME, Context.MODE_PRIVATE).edit();
 
         // Save rows
         int rowsId = rowsRadioGroup.getCheckedRadioButtonId();
-        editor.putInt(KEY_ROWS, getRowsValue(rowsId));
+        editor.putInt(GameSettings.KEY_ROWS, lookup(ROWS_IDS, ROWS_VALUES, rowsId, 8));
 
         // Save columns
         int columnsId = columnsRadioGroup.getCheckedRadioButtonId();
-        editor.putInt(KEY_COLUMNS, getColumnsValue(columnsId));
+        editor.putInt(GameSettings.KEY_COLUMNS, lookup(COLUMNS_IDS, COLUMNS_VALUES, columnsId, 8));
 
         // Save mines percent
         int minesId = minesRadioGroup.getCheckedRadioButtonId();
-        editor.putInt(KEY_MINES_PERCENT, getMinesPercentValue(minesId));
+        editor.putInt(GameSettings.KEY_MINES_PERCENT, lookup(MINES_IDS, MINES_VALUES, minesId, 15));
 
         // Save colors
-        editor.putInt(KEY_COVERED_COLOR, getSelectedColorIndex(coveredColorRadioGroup));
-        editor.putInt(KEY_UNCOVERED_COLOR, getSelectedColorIndex(uncoveredColorRadioGroup));
-        editor.putInt(KEY_SUSPECTED_COLOR, getSelectedColorIndex(suspectedColorRadioGroup));
-        editor.putInt(KEY_MINE_COLOR, getSelectedColorIndex(mineColorRadioGroup));
+        editor.putInt(GameSettings.KEY_COVERED_COLOR, getSelectedColorIndex(coveredColorRadioGroup, COVERED_COLOR_IDS));
+        editor.putInt(GameSettings.KEY_UNCOVERED_COLOR,
+                getSelectedColorIndex(uncoveredColorRadioGroup, UNCOVERED_COLOR_IDS));
+        editor.putInt(GameSettings.KEY_SUSPECTED_COLOR,
+                getSelectedColorIndex(suspectedColorRadioGroup, SUSPECTED_COLOR_IDS));
+        editor.putInt(GameSettings.KEY_MINE_COLOR, getSelectedColorIndex(mineColorRadioGroup, MINE_COLOR_IDS));
 
         editor.apply();
     }
@@ -238,171 +200,52 @@ public class SettingsActivity extends AppCompatActivity {
         }
     }
 
-    private int getRowsId(int rows) {
-        switch (rows) {
-            case 5: return R.id.rows5;
-            case 6: return R.id.rows6;
-            case 7: return R.id.rows7;
-            case 8: return R.id.rows8;
-            case 9: return R.id.rows9;
-            case 10: return R.id.rows10;
-            default: return R.id.rows8;
-        }
-    }
-
-    private int getRowsValue(int id) {
-        if (id == R.id.rows5) return 5;
-        if (id == R.id.rows6) return 6;
-        if (id == R.id.rows7) return 7;
-        if (id == R.id.rows8) return 8;
-        if (id == R.id.rows9) return 9;
-        if (id == R.id.rows10) return 10;
-        return 8;
-    }
-
-    private int getColumnsId(int columns) {
-        switch (columns) {
-            case 5: return R.id.columns5;
-            case 6: return R.id.columns6;
-            case 7: return R.id.columns7;
-            case 8: return R.id.columns8;
-            case 9: return R.id.columns9;
-            case 10: return R.id.columns10;
-            default: return R.id.columns8;
-        }
-    }
-
-    private int getColumnsValue(int id) {
-        if (id == R.id.columns5) return 5;
-        if (id == R.id.columns6) return 6;
-        if (id == R.id.columns7) return 7;
-        if (id == R.id.columns8) return 8;
-        if (id == R.id.columns9) return 9;
-        if (id == R.id.columns10) return 10;
-        return 8;
-    }
-
-    private int getMinesPercentId(int percent) {
-        switch (percent) {
-            case 10: return R.id.mines10;
-            case 15: return R.id.mines15;
-            case 20: return R.id.mines20;
-            default: return R.id.mines15;
-        }
-    }
-
-    private int getMinesPercentValue(int id) {
-        if (id == R.id.mines10) return 10;
-        if (id == R.id.mines15) return 15;
-        if (id == R.id.mines20) return 20;
-        return 15;
-    }
-
-    private int getColorId(RadioGroup group, int colorIndex) {
-        if (group == coveredColorRadioGroup) {
-            switch (colorIndex) {
-                case 1: return R.id.coveredColor1;
-                case 2: return R.id.coveredColor2;
-                case 3: return R.id.coveredColor3;
-                case 4: return R.id.coveredColor4;
-                case 5: return R.id.coveredColor5;
-                default: return R.id.coveredColor1;
-            }
-        } else if (group == uncoveredColorRadioGroup) {
-            switch (colorIndex) {
-                case 1: return R.id.uncoveredColor1;
-                case 2: return R.id.uncoveredColor2;
-                case 3: return R.id.uncoveredColor3;
-                case 4: return R.id.uncoveredColor4;
-                case 5: return R.id.uncoveredColor5;
-                default: return R.id.uncoveredColor1;
-            }
-        } else if (group == suspectedColorRadioGroup) {
-            switch (colorIndex) {
-                case 1: return R.id.suspectedColor1;
-                case 2: return R.id.suspectedColor2;
-                case 3: return R.id.suspectedColor3;
-                case 4: return R.id.suspectedColor4;
-                case 5: return R.id.suspectedColor5;
-                default: return R.id.suspectedColor1;
-            }
-        } else if (group == mineColorRadioGroup) {
-            switch (colorIndex) {
-                case 1: return R.id.mineColor1;
-                case 2: return R.id.mineColor2;
-                case 3: return R.id.mineColor3;
-                case 4: return R.id.mineColor4;
-                case 5: return R.id.mineColor5;
-                default: return R.id.mineColor1;
+    // Finds key in keys and returns the entry of values at the same position
+    private static int lookup(int[] keys, int[] values, int key, int defaultValue) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == key) {
+                return values[i];
             }
         }
-        return -1;
+        return defaultValue;
     }
 
-    private int getSelectedColorIndex(RadioGroup group) {
+    private static int getSelectedColorIndex(RadioGroup group, int[] ids) {
         int checkedId = group.getCheckedRadioButtonId();
-        if (group == coveredColorRadioGroup) {
-            if (checkedId == R.id.coveredColor1) return 1;
-            if (checkedId == R.id.coveredColor2) return 2;
-            if (checkedId == R.id.coveredColor3) return 3;
-            if (checkedId == R.id.coveredColor4) return 4;
-            if (checkedId == R.id.coveredColor5) return 5;
-        } else if (group == uncoveredColorRadioGroup) {
-            if (checkedId == R.id.uncoveredColor1) return 1;
-            if (checkedId == R.id.uncoveredColor2) return 2;
-            if (checkedId == R.id.uncoveredColor3) return 3;
-            if (checkedId == R.id.uncoveredColor4) return 4;
-            if (checkedId == R.id.uncoveredColor5) return 5;
-        } else if (group == suspectedColorRadioGroup) {
-            if (checkedId == R.id.suspectedColor1) return 1;
-            if (checkedId == R.id.suspectedColor2) return 2;
-            if (checkedId == R.id.suspectedColor3) return 3;
-            if (checkedId == R.id.suspectedColor4) return 4;
-            if (checkedId == R.id.suspectedColor5) return 5;
-        } else if (group == mineColorRadioGroup) {
-            if (checkedId == R.id.mineColor1) return 1;
-            if (checkedId == R.id.mineColor2) return 2;
-            if (checkedId == R.id.mineColor3) return 3;
-            if (checkedId == R.id.mineColor4) return 4;
-            if (checkedId == R.id.mineColor5) return 5;
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == checkedId) {
+                return i + 1;
+            }
         }
         return 1;
     }
 
-    // Static helper methods to access settings from other activities
+    // Static helper methods to access settings from other activities, see GameSettings
     public static int getRows(Context context) {
-        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        return prefs.getInt(KEY_ROWS, 8);
+        return GameSettings.get(context).rows;
     }
 
     public static int getColumns(Context context) {
-        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        return prefs.getInt(KEY_COLUMNS, 8);
+        return GameSettings.get(context).columns;
     }
 
     public static int getMinesPercent(Context context) {
-        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        return prefs.getInt(KEY_MINES_PERCENT, 15);
+        return GameSettings.get(context).minesPercent;
     }
 
     public static int getCoveredColorIndex(Context context) {
-        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        return prefs.getInt(KEY_COVERED_COLOR, 1);
+        return GameSettings.get(context).coveredColor;
     }
 
     public static int getUncoveredColorIndex(Context context) {
-        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        return prefs.getInt(KEY_UNCOVERED_COLOR, 1);
+        return GameSettings.get(context).uncoveredColor;
     }
 
     public static int getSuspectedColorIndex(Context context) {
-        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        return prefs.getInt(KEY_SUSPECTED_COLOR, 1);
+        return GameSettings.get(context).suspectedColor;
     }
 
     public static int getMineColorIndex(Context context) {
-        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        return prefs.getInt(KEY_MINE_COLOR, 1);
+        return GameSettings.get(context).mineColor;
     }
 }
-
@@ -0,0 +1,282 @@
+package com.example.minesweeper;
+
+import java.util.Arrays;
+
+/*
+ deduces safe squares and certain mines from what the player can see on a GameBoard.
+
+ Every uncovered number is a constraint: its covered neighbours that are not yet decided hold
+ exactly (number - decided mines) mines. Two rules are applied:
+   - single: 0 mines left means every undecided neighbour is safe, and as many mines left as
+     undecided neighbours means they are all mines
+   - subset: if A's undecided squares are a subset of B's, the squares only B sees hold exactly
+     B - A mines, which can again be 0 or all of them
+ The solver is incremental: update() only re-evaluates constraints next to squares the last move
+ changed, and every new deduction queues just the constraints around the decided square.
+ Player flags are not trusted; only the solver's own deductions count as mines.
+ */
+public class Solver {
+
+    private static final byte UNKNOWN = 0;
+    private static final byte SAFE = 1;
+    private static final byte MINE = 2;
+
+    private final GameBoard board;
+    private final int rows;
+    private final int columns;
+    private final byte[] knowledge;
+    private final boolean[] queued;
+    private int[] queue = new int[64];
+    private int queueHead;
+    private int queueTail;
+
+    private final CellChangeSet safeCells = new CellChangeSet();
+    private final CellChangeSet mineCells = new CellChangeSet();
+    private long constraintsEvaluated;
+    private long subsetChecks;
+
+    // Scratch lists of undecided neighbours, so evaluating a constraint does not allocate
+    private final int[] unknownA = new int[8];
+    private final int[] unknownB = new int[8];
+    // Mines still to place around the constraint last passed to collect()
+    private int collectedMinesLeft;
+
+    public Solver(GameBoard board) {
+        this.board = board;
+        this.rows = board.getRows();
+        this.columns = board.getColumns();
+        this.knowledge = new byte[rows * columns];
+        this.queued = new boolean[rows * columns];
+    }
+
+    // Re-evaluates only the constraints around the squares changed by the last move
+    public void update(CellChangeSet changes) {
+        startUpdate();
+        for (int k = 0; k < changes.size(); k++) {
+            int index = changes.get(k);
+            queueAround(index / columns, index % columns);
+        }
+        propagate();
+    }
+
+    // Evaluates every uncovered number, for attaching to a game already in progress
+    public void rescan() {
+        startUpdate();
+        for (int index = 0; index < rows * columns; index++) {
+            enqueue(index);
+        }
+        propagate();
+    }
+
+    // Forgets every deduction, for when the board has been reset to a new game
+    public void reset() {
+        Arrays.fill(knowledge, UNKNOWN);
+        Arrays.fill(queued, false);
+        queueHead = 0;
+        queueTail = 0;
+        startUpdate();
+    }
+
+    private void startUpdate() {
+        safeCells.clear();
+        mineCells.clear();
+        constraintsEvaluated = 0;
+        subsetChecks = 0;
+    }
+
+    private void propagate() {
+        while (queueHead != queueTail) {
+            int index = queue[queueHead];
+            queueHead = (queueHead + 1) % queue.length;
+            queued[index] = false;
+            evaluate(index);
+        }
+    }
+
+    private void queueAround(int row, int col) {
+        for (int i = -1; i <= 1; i++) {
+            for (int j = -1; j <= 1; j++) {
+                if (isValidPosition(row + i, col + j)) {
+                    enqueue((row + i) * columns + col + j);
+                }
+            }
+        }
+    }
+
+    private void enqueue(int index) {
+        if (queued[index] || !isConstraint(index)) {
+            return;
+        }
+        int size = (queueTail - queueHead + queue.length) % queue.length;
+        if (size == queue.length - 1) {
+            int[] grown = new int[queue.length * 2];
+            for (int k = 0; k < size; k++) {
+                grown[k] = queue[(queueHead + k) % queue.length];
+            }
+            queue = grown;
+            queueHead = 0;
+            queueTail = size;
+        }
+        queue[queueTail] = index;
+        queueTail = (queueTail + 1) % queue.length;
+        queued[index] = true;
+    }
+
+    // An uncovered number that still has undecided neighbours
+    private boolean isConstraint(int index) {
+        int row = index / columns;
+        int col = index % columns;
+        return board.getState(row, col) == GameBoard.CellState.UNCOVERED
+                && !board.isMine(row, col) && board.getAdjacentMines(row, col) > 0;
+    }
+
+    private boolean isValidPosition(int row, int col) {
+        return row >= 0 && row < rows && col >= 0 && col < columns;
+    }
+
+    // Fills unknown with the undecided covered neighbours of the constraint and returns how many
+    private int collect(int index, int[] unknown) {
+        int row = index / columns;
+        int col = index % columns;
+        int minesLeft = board.getAdjacentMines(row, col);
+        int count = 0;
+        for (int i = -1; i <= 1; i++) {
+            for (int j = -1; j <= 1; j++) {
+                int newRow = row + i;
+                int newCol = col + j;
+                if (!isValidPosition(newRow, newCol)
+                        || board.getState(newRow, newCol) == GameBoard.CellState.UNCOVERED) {
+                    continue;
+                }
+                int neighbour = newRow * columns + newCol;
+                if (knowledge[neighbour] == MINE) {
+                    minesLeft--;
+                } else if (knowledge[neighbour] == UNKNOWN) {
+                    unknown[count++] = neighbour;
+                }
+            }
+        }
+        collectedMinesLeft = minesLeft;
+        return count;
+    }
+
+    private void evaluate(int index) {
+        constraintsEvaluated++;
+        int count = collect(index, unknownA);
+        int minesLeft = collectedMinesLeft;
+        if (count == 0) {
+            return;
+        }
+
+        // Single-constraint rule
+        if (minesLeft == 0 || minesLeft == count) {
+            byte value = minesLeft == 0 ? SAFE : MINE;
+            for (int k = 0; k < count; k++) {
+                decide(unknownA[k], value);
+            }
+            return;
+        }
+
+        // Subset rule against every constraint close enough to share a square with this one
+        int row = index / columns;
+        int col = index % columns;
+        for (int i = -2; i <= 2; i++) {
+            for (int j = -2; j <= 2; j++) {
+                int otherRow = row + i;
+                int otherCol = col + j;
+                if ((i == 0 && j == 0) || !isValidPosition(otherRow, otherCol)) {
+                    continue;
+                }
+                int other = otherRow * columns + otherCol;
+                if (!isConstraint(other)) {
+                    continue;
+                }
+                subsetChecks++;
+                int otherCount = collect(other, unknownB);
+                int otherMinesLeft = collectedMinesLeft;
+                // Re-read this constraint, an earlier pair may have decided some of its squares
+                count = collect(index, unknownA);
+                minesLeft = collectedMinesLeft;
+                if (count == 0) {
+                    return;
+                }
+                if (!applySubset(unknownA, count, minesLeft, unknownB, otherCount, otherMinesLeft)) {
+                    applySubset(unknownB, otherCount, otherMinesLeft, unknownA, count, minesLeft);
+                }
+            }
+        }
+    }
+
+    // If small is a subset of large, decides large \ small when its mine count is 0 or full
+    private boolean applySubset(int[] small, int smallSize, int smallMines,
+                                int[] large, int largeSize, int largeMines) {
+        if (smallSize == 0 || smallSize >= largeSize) {
+            return false;
+        }
+        for (int a = 0; a < smallSize; a++) {
+            if (!contains(large, largeSize, small[a])) {
+                return false;
+            }
+        }
+        int diffMines = largeMines - smallMines;
+        int diffSize = largeSize - smallSize;
+        if (diffMines != 0 && diffMines != diffSize) {
+            return false;
+        }
+        byte value = diffMines == 0 ? SAFE : MINE;
+        for (int b = 0; b < largeSize; b++) {
+            if (!contains(small, smallSize, large[b])) {
+                decide(large[b], value);
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(int[] values, int size, int value) {
+        for (int k = 0; k < size; k++) {
+            if (values[k] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void decide(int index, byte value) {
+        if (knowledge[index] != UNKNOWN) {
+            return;
+        }
+        knowledge[index] = value;
+        if (value == SAFE) {
+            safeCells.add(index);
+        } else {
+            mineCells.add(index);
+        }
+        queueAround(index / columns, index % columns);
+    }
+
+    public boolean isKnownSafe(int row, int col) {
+        return knowledge[row * columns + col] == SAFE;
+    }
+
+    public boolean isKnownMine(int row, int col) {
+        return knowledge[row * columns + col] == MINE;
+    }
+
+    // Safe squares found by the last update() or rescan(), as row * columns + col
+    public CellChangeSet getSafeCells() {
+        return safeCells;
+    }
+
+    // Certain mines found by the last update() or rescan()
+    public CellChangeSet getMineCells() {
+        return mineCells;
+    }
+
+    public long getConstraintsEvaluated() {
+        return constraintsEvaluated;
+    }
+
+    public long getSubsetChecks() {
+        return subsetChecks;
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.minesweeper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.graphics.drawable.GradientDrawable;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+/*
+ BoardView against the grid GameActivity used to build, a FrameLayout holding a TextView and an
+ ImageView for every square and a LinearLayout per row, built here the same way
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class BoardViewLayoutTest {
+
+    private static final int ROWS = 30;
+    private static final int COLUMNS = 30;
+    private static final int CELL_SIZE = 40;
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+
+    @Test
+    public void boardIsOneViewInsteadOfThreePerSquare() {
+        Context context = RuntimeEnvironment.getApplication();
+        GameBoard board = playedBoard();
+
+        assertEquals(1, countViews(boardView(context, board)));
+        // The row layouts, three views per square, and the layout holding the rows
+        assertEquals(3 * ROWS * COLUMNS + ROWS + 1, countViews(cellGrid(context, board)));
+    }
+
+    @Test
+    public void measureAndLayoutCostAFractionOfTheCellGrid() {
+        Context context = RuntimeEnvironment.getApplication();
+        GameBoard board = playedBoard();
+        View boardView = boardView(context, board);
+        View cellGrid = cellGrid(context, board);
+
+        // The first passes load classes and warm up the JIT for both
+        timeLayoutPasses(boardView, 5);
+        timeLayoutPasses(cellGrid, 5);
+        long boardNanos = timeLayoutPasses(boardView, 20);
+        long gridNanos = timeLayoutPasses(cellGrid, 20);
+
+        System.out.println("Measure and layout, 20 passes on " + ROWS + "x" + COLUMNS + ": BoardView "
+                + boardNanos / 1000 + " us, cell grid " + gridNanos / 1000 + " us");
+        assertTrue(gridNanos > 10 * boardNanos);
+    }
+
+    private static GameBoard playedBoard() {
+        GameBoard board = new GameBoard(ROWS, COLUMNS, 15, 7, true);
+        board.revealCell(ROWS / 2, COLUMNS / 2);
+        return board;
+    }
+
+    private static View boardView(Context context, GameBoard board) {
+        BoardView view = new BoardView(context);
+        view.setBoard(board, CELL_SIZE);
+        return view;
+    }
+
+    // Full passes, as after a rotation: every view is measured and laid out again
+    private static long timeLayoutPasses(View root, int passes) {
+        int widthSpec = View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY);
+        int heightSpec = View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.AT_MOST);
+        long start = System.nanoTime();
+        for (int pass = 0; pass < passes; pass++) {
+            forceLayout(root);
+            root.measure(widthSpec, heightSpec);
+            root.layout(0, 0, root.getMeasuredWidth(), root.getMeasuredHeight());
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void forceLayout(View view) {
+        view.forceLayout();
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                forceLayout(group.getChildAt(i));
+            }
+        }
+    }
+
+    private static int countViews(View view) {
+        int count = 1;
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                count += countViews(group.getChildAt(i));
+            }
+        }
+        return count;
+    }
+
+    // The old setupGameBoard(), createCellContainer() and updateCellView(), without the listeners
+    private static View cellGrid(Context context, GameBoard board) {
+        LinearLayout gameBoardLayout = new LinearLayout(context);
+        gameBoardLayout.setOrientation(LinearLayout.VERTICAL);
+        for (int i = 0; i < board.getRows(); i++) {
+            LinearLayout rowLayout = new LinearLayout(context);
+            rowLayout.setOrientation(LinearLayout.HORIZONTAL);
+            rowLayout.setGravity(Gravity.CENTER);
+            for (int j = 0; j < board.getColumns(); j++) {
+                rowLayout.addView(cellContainer(context, board, i, j));
+            }
+            gameBoardLayout.addView(rowLayout);
+        }
+        return gameBoardLayout;
+    }
+
+    private static FrameLayout cellContainer(Context context, GameBoard board, int row, int col) {
+        FrameLayout container = new FrameLayout(context);
+        FrameLayout.LayoutParams containerParams = new FrameLayout.LayoutParams(CELL_SIZE, CELL_SIZE);
+        containerParams.setMargins(2, 2, 2, 2);
+        container.setLayoutParams(containerParams);
+
+        TextView cellView = new TextView(context);
+        cellView.setLayoutParams(new FrameLayout.LayoutParams(
+                FrameLayout.LayoutParams.MATCH_PARENT, FrameLayout.LayoutParams.MATCH_PARENT));
+        cellView.setGravity(Gravity.CENTER);
+        cellView.setTextSize(16);
+        cellView.setTextColor(Color.BLACK);
+
+        ImageView imageView = new ImageView(context);
+        FrameLayout.LayoutParams imageParams = new FrameLayout.LayoutParams(
+                (int) (CELL_SIZE * 0.85), (int) (CELL_SIZE * 0.85));
+        imageParams.gravity = Gravity.CENTER;
+        imageView.setLayoutParams(imageParams);
+        imageView.setScaleType(ImageView.ScaleType.FIT_CENTER);
+        imageView.setVisibility(View.GONE);
+
+        GradientDrawable background = new GradientDrawable();
+        background.setShape(GradientDrawable.RECTANGLE);
+        background.setCornerRadius(8f);
+        GameBoard.CellState state = board.getState(row, col);
+        if (state == GameBoard.CellState.UNCOVERED && !board.isMine(row, col)) {
+            background.setColor(Color.LTGRAY);
+            int adjacentMines = board.getAdjacentMines(row, col);
+            cellView.setText(adjacentMines > 0 ? String.valueOf(adjacentMines) : "");
+        } else {
+            background.setColor(Color.GRAY);
+        }
+        cellView.setBackground(background);
+
+        container.addView(cellView);
+        container.addView(imageView);
+        return container;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.minesweeper.benchmark;
+
+import com.example.minesweeper.GameBoard;
+
+/*
+ helpers shared by the benchmarks
+ */
+final class Boards {
+
+    private Boards() {
+    }
+
+    // Parses a "rows x columns" parameter such as "1000x1000"
+    static int rows(String size) {
+        return Integer.parseInt(size.substring(0, size.indexOf('x')));
+    }
+
+    static int columns(String size) {
+        return Integer.parseInt(size.substring(size.indexOf('x') + 1));
+    }
+
+    // The square in the middle of the board, as an index
+    static int middle(GameBoard board) {
+        return board.getRows() / 2 * board.getColumns() + board.getColumns() / 2;
+    }
+
+    // A covered mine, as an index
+    static int findMine(GameBoard board) {
+        for (int i = 0; i < board.getRows(); i++) {
+            for (int j = 0; j < board.getColumns(); j++) {
+                if (board.isMine(i, j)) {
+                    return i * board.getColumns() + j;
+                }
+            }
+        }
+        throw new IllegalStateException("Board has no mine");
+    }
+
+    /*
+     uncovers every safe square but one, which is returned as an index. That square is flagged
+     meanwhile, since a flood would otherwise open it before its own tap
+     */
+    static int revealAllButOneSafe(GameBoard board) {
+        int columns = board.getColumns();
+        int last = board.getRows() * columns - 1;
+        while (last >= 0 && board.isMine(last / columns, last % columns)) {
+            last--;
+        }
+        if (last < 0) {
+            throw new IllegalStateException("Board has no safe square");
+        }
+
+        board.toggleFlag(last / columns, last % columns);
+        for (int i = 0; i < board.getRows(); i++) {
+            for (int j = 0; j < columns; j++) {
+                if (!board.isMine(i, j) && board.getState(i, j) == GameBoard.CellState.COVERED) {
+                    board.revealCell(i, j);
+                }
+            }
+        }
+        board.toggleFlag(last / columns, last % columns);
+
+        if (board.getState(last / columns, last % columns) != GameBoard.CellState.COVERED
+                || board.isGameFinished() || board.getCoveredCells() != board.getTotalMines() + 1) {
+            throw new IllegalStateException("Last safe square was not left covered on its own");
+        }
+        return last;
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.minesweeper.benchmark;
+
+import com.example.minesweeper.CellChangeSet;
+import com.example.minesweeper.ConcurrentGameBoard;
+import com.example.minesweeper.GameBoard;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ one board cleared by several players at once. Each one reveals safe squares taken in chunks
+ from a shared shuffled order. ConcurrentGameBoard, which claims squares with CAS, is measured
+ against a GameBoard that every player locks for each move
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ConcurrentBoardBenchmark {
+
+    // Squares a player takes from the shared order at a time
+    private static final int CHUNK = 256;
+
+    @State(Scope.Thread)
+    public abstract static class Players {
+        @Param({"100x100", "1000x1000"})
+        public String size;
+
+        @Param({"1", "2", "4", "8"})
+        public int players;
+
+        int rows;
+        int columns;
+        long seed = 1;
+        int[] order;
+        ExecutorService pool;
+
+        @Setup(Level.Trial)
+        public void startPlayers() {
+            rows = Boards.rows(size);
+            columns = Boards.columns(size);
+            pool = Executors.newFixedThreadPool(players);
+            GameBoard layout = new GameBoard(rows, columns, 15, seed, false);
+            order = shuffledSafeSquares(layout);
+        }
+
+        @TearDown(Level.Trial)
+        public void stopPlayers() {
+            pool.shutdownNow();
+        }
+
+        // Every player plays until the shared order runs out
+        void play(final Move move) throws Exception {
+            final AtomicInteger cursor = new AtomicInteger();
+            Future<?>[] futures = new Future<?>[players];
+            for (int p = 0; p < players; p++) {
+                futures[p] = pool.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        CellChangeSet changes = new CellChangeSet();
+                        int from;
+                        while ((from = cursor.getAndAdd(CHUNK)) < order.length) {
+                            int to = Math.min(order.length, from + CHUNK);
+                            for (int k = from; k < to; k++) {
+                                move.reveal(order[k] / columns, order[k] % columns, changes);
+                            }
+                        }
+                        return null;
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+    }
+
+    interface Move {
+        void reveal(int row, int col, CellChangeSet changes);
+    }
+
+    public static class LockFree extends Players {
+        ConcurrentGameBoard board;
+
+        @Setup(Level.Invocation)
+        public void newBoard() {
+            board = new ConcurrentGameBoard(rows, columns, 15, seed);
+        }
+    }
+
+    public static class Locked extends Players {
+        GameBoard board;
+
+        @Setup(Level.Invocation)
+        public void newBoard() {
+            board = new GameBoard(rows, columns, 15, seed, false);
+        }
+    }
+
+    static int[] shuffledSafeSquares(GameBoard layout) {
+        int[] safe = new int[layout.getRows() * layout.getColumns() - layout.getTotalMines()];
+        int count = 0;
+        for (int i = 0; i < layout.getRows(); i++) {
+            for (int j = 0; j < layout.getColumns(); j++) {
+                if (!layout.isMine(i, j)) {
+                    safe[count++] = i * layout.getColumns() + j;
+                }
+            }
+        }
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = safe[i];
+            safe[i] = safe[j];
+            safe[j] = swap;
+        }
+        return safe;
+    }
+
+    @Benchmark
+    public boolean clearLockFree(final LockFree state) throws Exception {
+        state.play(new Move() {
+            @Override
+            public void reveal(int row, int col, CellChangeSet changes) {
+                state.board.revealCell(row, col, changes);
+            }
+        });
+        return state.board.isGameWon();
+    }
+
+    @Benchmark
+    public boolean clearLocked(final Locked state) throws Exception {
+        state.play(new Move() {
+            @Override
+            public void reveal(int row, int col, CellChangeSet changes) {
+                synchronized (state.board) {
+                    state.board.revealCell(row, col);
+                }
+            }
+        });
+        return state.board.isGameWon();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.minesweeper.benchmark;
+
+import com.example.minesweeper.GameBoard;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ cost of building a board: mine placement plus adjacency counting
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ConstructionBenchmark {
+
+    @Param({"10x10", "100x100", "1000x1000", "4000x4000"})
+    public String size;
+
+    @Param({"10", "15", "20"})
+    public int minesPercent;
+
+    @Param({"SCAN", "BITBOARD", "MINE_DRIVEN", "PARALLEL", "AUTO"})
+    public GameBoard.AdjacencyStrategy strategy;
+
+    private int rows;
+    private int columns;
+    private long seed;
+
+    @Setup
+    public void setup() {
+        rows = Boards.rows(size);
+        columns = Boards.columns(size);
+    }
+
+    @Benchmark
+    public GameBoard construct() {
+        return new GameBoard(rows, columns, minesPercent, seed++, false, strategy);
+    }
+
+    // Deferred placement as the game screen uses it: build, then the first tap places the mines
+    @Benchmark
+    public GameBoard constructAndFirstReveal() {
+        GameBoard board = new GameBoard(rows, columns, minesPercent, seed++, true, strategy);
+        board.revealCell(rows / 2, columns / 2);
+        return board;
+    }
+}
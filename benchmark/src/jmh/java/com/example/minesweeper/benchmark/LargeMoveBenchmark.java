@@ -0,0 +1,114 @@
+package com.example.minesweeper.benchmark;
+
+import com.example.minesweeper.GameBoard;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ the taps of MoveBenchmark on 1000x1000 and 4000x4000 boards. A batch of these would not fit
+ in memory, so each iteration builds one board and times its one tap
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+public class LargeMoveBenchmark {
+
+    @State(Scope.Thread)
+    public abstract static class LargeBoard {
+        @Param({"1000x1000", "4000x4000"})
+        public String size;
+
+        @Param({"1", "20"})
+        public int minesPercent;
+
+        int columns;
+        long seed;
+        GameBoard board;
+        int tap;
+
+        @Setup(Level.Iteration)
+        public void build() {
+            // Let the last board go before allocating the next one
+            board = null;
+            columns = Boards.columns(size);
+            board = new GameBoard(Boards.rows(size), columns, percent(), ++seed, false);
+            tap = prepare(board);
+        }
+
+        int percent() {
+            return minesPercent;
+        }
+
+        abstract int prepare(GameBoard board);
+
+        GameBoard tap() {
+            board.revealCell(tap / columns, tap % columns);
+            return board;
+        }
+    }
+
+    public static class OpenBoard extends LargeBoard {
+        @Override
+        int prepare(GameBoard board) {
+            return Boards.middle(board);
+        }
+    }
+
+    public static class EmptyBoard extends LargeBoard {
+        @Override
+        int percent() {
+            return 0;
+        }
+
+        @Override
+        int prepare(GameBoard board) {
+            return 0;
+        }
+    }
+
+    public static class LosingBoard extends LargeBoard {
+        @Override
+        int prepare(GameBoard board) {
+            return Boards.findMine(board);
+        }
+    }
+
+    public static class NearlyWonBoard extends LargeBoard {
+        @Override
+        int prepare(GameBoard board) {
+            return Boards.revealAllButOneSafe(board);
+        }
+    }
+
+    @Benchmark
+    public boolean revealCell(OpenBoard state) {
+        return state.tap().isGameFinished();
+    }
+
+    @Benchmark
+    public boolean floodRevealWholeBoard(EmptyBoard state) {
+        return state.tap().isGameWon();
+    }
+
+    @Benchmark
+    public boolean revealMine(LosingBoard state) {
+        return state.tap().isGameOver();
+    }
+
+    @Benchmark
+    public boolean revealLastSafeCell(NearlyWonBoard state) {
+        return state.tap().isGameWon();
+    }
+}
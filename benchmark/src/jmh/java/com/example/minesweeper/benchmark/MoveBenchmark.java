@@ -0,0 +1,165 @@
+package com.example.minesweeper.benchmark;
+
+import com.example.minesweeper.GameBoard;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ single moves on boards up to 100x100. A reveal cannot be repeated on the same square, so every
+ tap gets a fresh board. Most of these taps take well under a microsecond, too little to set a
+ board up around each one, so BATCH boards are built before every iteration and the iteration
+ times one pass tapping all of them; the score is per tap. LargeMoveBenchmark covers the big
+ boards one tap per iteration
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@OperationsPerInvocation(MoveBenchmark.BATCH)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+public class MoveBenchmark {
+
+    static final int BATCH = 1000;
+
+    @State(Scope.Thread)
+    public abstract static class BoardBatch {
+        @Param({"10x10", "100x100"})
+        public String size;
+
+        // 1 gives an open board with large empty regions, 20 a dense one
+        @Param({"1", "20"})
+        public int minesPercent;
+
+        int columns;
+        long seed;
+        final GameBoard[] boards = new GameBoard[BATCH];
+        // The square each board is tapped on, as an index
+        final int[] taps = new int[BATCH];
+
+        @Setup(Level.Iteration)
+        public void build() {
+            int rows = Boards.rows(size);
+            columns = Boards.columns(size);
+            for (int b = 0; b < BATCH; b++) {
+                boards[b] = new GameBoard(rows, columns, percent(), ++seed, false);
+                taps[b] = prepare(boards[b]);
+            }
+        }
+
+        int percent() {
+            return minesPercent;
+        }
+
+        // Readies a new board for its tap and returns the square to tap
+        abstract int prepare(GameBoard board);
+
+        // Taps every board once and returns how many games that ended
+        int tapAll() {
+            int finished = 0;
+            for (int b = 0; b < BATCH; b++) {
+                boards[b].revealCell(taps[b] / columns, taps[b] % columns);
+                if (boards[b].isGameFinished()) {
+                    finished++;
+                }
+            }
+            return finished;
+        }
+    }
+
+    public static class OpenBoards extends BoardBatch {
+        @Override
+        int prepare(GameBoard board) {
+            return Boards.middle(board);
+        }
+    }
+
+    public static class EmptyBoards extends BoardBatch {
+        @Override
+        int percent() {
+            return 0;
+        }
+
+        @Override
+        int prepare(GameBoard board) {
+            return 0;
+        }
+    }
+
+    public static class LosingBoards extends BoardBatch {
+        @Override
+        int prepare(GameBoard board) {
+            return Boards.findMine(board);
+        }
+    }
+
+    public static class NearlyWonBoards extends BoardBatch {
+        @Override
+        int prepare(GameBoard board) {
+            return Boards.revealAllButOneSafe(board);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class FlagBoard {
+        @Param({"10x10", "100x100"})
+        public String size;
+
+        @Param({"1", "20"})
+        public int minesPercent;
+
+        GameBoard board;
+
+        @Setup(Level.Trial)
+        public void build() {
+            board = new GameBoard(Boards.rows(size), Boards.columns(size), minesPercent, 1, false);
+        }
+    }
+
+    // A tap in the middle of the board, opening whatever region is there
+    @Benchmark
+    public int revealCell(OpenBoards state) {
+        return state.tapAll();
+    }
+
+    // Worst case flood: no mines, so one tap opens every square and wins
+    @Benchmark
+    public int floodRevealWholeBoard(EmptyBoards state) {
+        return state.tapAll();
+    }
+
+    // Losing tap: game over plus revealAllMines
+    @Benchmark
+    public int revealMine(LosingBoards state) {
+        return state.tapAll();
+    }
+
+    // Winning tap: win check plus revealAllMines
+    @Benchmark
+    public int revealLastSafeCell(NearlyWonBoards state) {
+        return state.tapAll();
+    }
+
+    // Repeatable on one board, so timed the usual way
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OperationsPerInvocation(1)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    public GameBoard.CellState toggleFlag(FlagBoard state) {
+        int row = state.board.getRows() / 2;
+        int col = state.board.getColumns() / 2;
+        state.board.toggleFlag(row, col);
+        return state.board.getState(row, col);
+    }
+}
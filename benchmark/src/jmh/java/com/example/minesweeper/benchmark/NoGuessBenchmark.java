@@ -0,0 +1,56 @@
+package com.example.minesweeper.benchmark;
+
+import com.example.minesweeper.NoGuessGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ no-guess boards produced per second, using every core
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class NoGuessBenchmark {
+
+    @Param({"9x9", "16x16", "16x30", "30x30", "100x100"})
+    public String size;
+
+    @Param({"10", "15", "20"})
+    public int minesPercent;
+
+    private NoGuessGenerator generator;
+    private int rows;
+    private int columns;
+    private long seed;
+
+    @Setup
+    public void setup() {
+        rows = Boards.rows(size);
+        columns = Boards.columns(size);
+        generator = new NoGuessGenerator();
+    }
+
+    @TearDown
+    public void tearDown() {
+        generator.shutdown();
+    }
+
+    @Benchmark
+    public NoGuessGenerator.Result findSeed() {
+        return generator.findSeed(rows, columns, minesPercent, rows / 2, columns / 2, seed++,
+                NoGuessGenerator.DEFAULT_TIMEOUT_MILLIS);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.minesweeper;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.Random;
+
+/*
+ heap a built board holds: GameBoard's packed byte per square against the Cell object grid it
+ replaced, rebuilt here as it was. JOL walks each object graph and adds up the shallow sizes,
+ so the numbers are what stays reachable, not what construction allocated on the way
+ */
+public class BoardFootprintTest {
+
+    private static final int SIDE = 2000;
+    private static final int MINES_PERCENT = 15;
+
+    @Test
+    public void packedBoardHoldsAFractionOfTheCellGrid() {
+        GameBoard packed = new GameBoard(SIDE, SIDE, MINES_PERCENT, 1, false);
+        long packedBytes = GraphLayout.parseInstance(packed).totalSize();
+        CellGrid grid = new CellGrid(SIDE, SIDE, MINES_PERCENT);
+        long gridBytes = GraphLayout.parseInstance(grid).totalSize();
+
+        System.out.printf("%dx%d at %d%%: Cell grid %.1f MB, packed GameBoard %.1f MB%n",
+                SIDE, SIDE, MINES_PERCENT, gridBytes / 1e6, packedBytes / 1e6);
+        assertTrue(gridBytes > 8 * packedBytes);
+    }
+
+    /*
+     the board layout before the packed byte[]: one Cell object per square in an array per row
+     */
+    static final class CellGrid {
+        static final class Cell {
+            boolean isMine;
+            int adjacentMines;
+            GameBoard.CellState state = GameBoard.CellState.COVERED;
+        }
+
+        final Cell[][] board;
+
+        CellGrid(int rows, int columns, int minesPercent) {
+            board = new Cell[rows][columns];
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < columns; j++) {
+                    board[i][j] = new Cell();
+                }
+            }
+            Random random = new Random(1);
+            int mines = rows * columns * minesPercent / 100;
+            for (int placed = 0; placed < mines; ) {
+                Cell cell = board[random.nextInt(rows)][random.nextInt(columns)];
+                if (!cell.isMine) {
+                    cell.isMine = true;
+                    placed++;
+                }
+            }
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < columns; j++) {
+                    for (int di = -1; di <= 1; di++) {
+                        for (int dj = -1; dj <= 1; dj++) {
+                            int r = i + di;
+                            int c = j + dj;
+                            if (r >= 0 && r < rows && c >= 0 && c < columns && board[r][c].isMine) {
+                                board[i][j].adjacentMines++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
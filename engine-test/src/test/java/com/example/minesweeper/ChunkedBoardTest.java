@@ -0,0 +1,125 @@
+package com.example.minesweeper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/*
+ chunk generation at the edges, and chunks moving between untouched, active and settled
+ */
+public class ChunkedBoardTest {
+
+    private static final int SIZE = ChunkedBoard.CHUNK_SIZE;
+
+    @Test
+    public void adjacentCountsAgreeAcrossChunkEdges() {
+        ChunkedBoard board = new ChunkedBoard(11, 20);
+        // Touch a few chunks so both stored and computed squares are read
+        board.revealCell(0, 0);
+        board.toggleFlag(-SIZE - 1, SIZE);
+
+        for (int row = -SIZE - 3; row <= SIZE + 3; row++) {
+            for (int col = -SIZE - 3; col <= SIZE + 3; col++) {
+                if (board.isMine(row, col)) {
+                    continue;
+                }
+                int count = 0;
+                for (int i = -1; i <= 1; i++) {
+                    for (int j = -1; j <= 1; j++) {
+                        if (board.isMine(row + i, col + j)) {
+                            count++;
+                        }
+                    }
+                }
+                assertEquals(row + "," + col, count, board.getAdjacentMines(row, col));
+            }
+        }
+    }
+
+    @Test
+    public void chunkThatGoesBackToUntouchedIsDropped() {
+        ChunkedBoard board = new ChunkedBoard(3, 15);
+
+        board.toggleFlag(5 * SIZE, 7 * SIZE);
+        assertEquals(1, board.getActiveChunkCount());
+        board.toggleFlag(5 * SIZE, 7 * SIZE);
+
+        assertEquals(0, board.getActiveChunkCount());
+        assertEquals(GameBoard.CellState.COVERED, board.getState(5 * SIZE, 7 * SIZE));
+    }
+
+    @Test
+    public void settledChunkKeepsItsFlagsAndOpenSquares() {
+        ChunkedBoard board = new ChunkedBoard(5, 15);
+        int firstMine = findMine(board, 0);
+        int secondMine = findMine(board, firstMine + 1);
+        board.toggleFlag(firstMine / SIZE, firstMine % SIZE);
+
+        settleChunkAtOrigin(board);
+
+        assertEquals(GameBoard.CellState.FLAGGED, board.getState(firstMine / SIZE, firstMine % SIZE));
+        // A settled chunk takes flags without expanding
+        board.toggleFlag(secondMine / SIZE, secondMine % SIZE);
+        assertEquals(GameBoard.CellState.FLAGGED, board.getState(secondMine / SIZE, secondMine % SIZE));
+        board.toggleFlag(firstMine / SIZE, firstMine % SIZE);
+        assertEquals(GameBoard.CellState.COVERED, board.getState(firstMine / SIZE, firstMine % SIZE));
+        assertAllSafeSquaresOpen(board);
+    }
+
+    @Test
+    public void settledChunkReopensWithItsSquaresOpenWhenAMineIsRevealed() {
+        ChunkedBoard board = new ChunkedBoard(5, 15);
+        int flaggedMine = findMine(board, 0);
+        int tappedMine = findMine(board, flaggedMine + 1);
+        board.toggleFlag(flaggedMine / SIZE, flaggedMine % SIZE);
+        settleChunkAtOrigin(board);
+        long uncovered = board.getUncoveredCells();
+        int settled = board.getSettledChunkCount();
+        int active = board.getActiveChunkCount();
+
+        // A flagged mine is not revealed, even in a settled chunk
+        assertFalse(board.revealCell(flaggedMine / SIZE, flaggedMine % SIZE));
+        assertTrue(board.revealCell(tappedMine / SIZE, tappedMine % SIZE));
+
+        assertTrue(board.isGameOver());
+        assertEquals(uncovered + 1, board.getUncoveredCells());
+        assertEquals(settled - 1, board.getSettledChunkCount());
+        assertEquals(active + 1, board.getActiveChunkCount());
+        assertAllSafeSquaresOpen(board);
+    }
+
+    // Opens every safe square of chunk (0, 0); floods may open squares of its neighbours too
+    private static void settleChunkAtOrigin(ChunkedBoard board) {
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                if (!board.isMine(row, col) && board.getState(row, col) == GameBoard.CellState.COVERED) {
+                    assertFalse(board.revealCell(row, col));
+                }
+            }
+        }
+        assertAllSafeSquaresOpen(board);
+        assertTrue(board.getSettledChunkCount() >= 1);
+    }
+
+    private static void assertAllSafeSquaresOpen(ChunkedBoard board) {
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                if (!board.isMine(row, col)) {
+                    assertEquals(row + "," + col, GameBoard.CellState.UNCOVERED, board.getState(row, col));
+                }
+            }
+        }
+    }
+
+    // First mine of chunk (0, 0) at or after a local index
+    private static int findMine(ChunkedBoard board, int from) {
+        for (int local = from; local < SIZE * SIZE; local++) {
+            if (board.isMine(local / SIZE, local % SIZE)) {
+                return local;
+            }
+        }
+        throw new AssertionError("No mine in chunk (0, 0)");
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.minesweeper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ ConcurrentGameBoard played by several threads at once, then checked against a recount of its squares
+ */
+public class ConcurrentGameBoardTest {
+
+    private static final int PLAYERS = 4;
+
+    @Test
+    public void randomMovesFromManyThreadsKeepCountersExact() throws Exception {
+        SplittableRandom random = new SplittableRandom(24);
+        AtomicInteger chords = new AtomicInteger();
+        int lost = 0;
+        for (int game = 0; game < 60; game++) {
+            int minesPercent = random.nextInt(4) == 0 ? random.nextInt(3) : random.nextInt(21);
+            ConcurrentGameBoard board = new ConcurrentGameBoard(20 + random.nextInt(61), 20 + random.nextInt(61),
+                    minesPercent, random.nextLong());
+
+            boolean[][] claimed = play(board, random.nextLong(), false, chords);
+
+            assertMatchesRecount(board, claimed);
+            if (board.isGameOver()) {
+                lost++;
+            }
+        }
+        assertTrue(lost > 0);
+        assertTrue(chords.get() > 0);
+    }
+
+    @Test
+    public void playersAvoidingMinesShareOneWin() throws Exception {
+        SplittableRandom random = new SplittableRandom(25);
+        for (int game = 0; game < 20; game++) {
+            ConcurrentGameBoard board = new ConcurrentGameBoard(20 + random.nextInt(41), 20 + random.nextInt(41),
+                    1 + random.nextInt(20), random.nextLong());
+
+            boolean[][] claimed = play(board, random.nextLong(), true, new AtomicInteger());
+
+            assertMatchesRecount(board, claimed);
+            assertTrue(board.isGameWon());
+            assertEquals(0, board.getSafeCellsCovered());
+            // Nobody tapped a mine, so the one move that won showed them all
+            int winner = -1;
+            for (int m = 0; m < board.getRows() * board.getColumns(); m++) {
+                if (!board.isMine(m / board.getColumns(), m % board.getColumns())) {
+                    continue;
+                }
+                for (int t = 0; t < PLAYERS; t++) {
+                    if (claimed[t][m]) {
+                        assertTrue(winner == -1 || winner == t);
+                        winner = t;
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     runs PLAYERS threads of random reveals, chords and flags until the game ends or each has made
+     its moves, and returns the squares each thread got back in its changes. Careful players only
+     reveal safe squares and only flag mines, each in its own share of the board so that no two
+     toggle the same flag, and play until the game is won
+     */
+    private static boolean[][] play(final ConcurrentGameBoard board, long seed, final boolean careful,
+                                    final AtomicInteger chords) throws Exception {
+        final int rows = board.getRows();
+        final int columns = board.getColumns();
+        final boolean[][] claimed = new boolean[PLAYERS][rows * columns];
+        final Throwable[] failures = new Throwable[PLAYERS];
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[PLAYERS];
+        for (int t = 0; t < PLAYERS; t++) {
+            final int player = t;
+            final SplittableRandom random = new SplittableRandom(seed + t);
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        CellChangeSet changes = new CellChangeSet();
+                        for (int move = 0; !board.isGameFinished() && (careful || move < 3000); move++) {
+                            int row = random.nextInt(rows);
+                            int col = random.nextInt(columns);
+                            int index = row * columns + col;
+                            int kind = random.nextInt(4);
+                            if (kind == 0) {
+                                if (!careful || board.isMine(row, col) && index % PLAYERS == player
+                                        && board.getState(row, col) == GameBoard.CellState.COVERED) {
+                                    board.toggleFlag(row, col);
+                                }
+                                continue;
+                            }
+                            if (kind == 1 && board.getState(row, col) == GameBoard.CellState.UNCOVERED) {
+                                flagMinesAround(board, row, col, careful ? player : -1);
+                                if (board.chord(row, col, changes) || changes.size() > 0) {
+                                    chords.incrementAndGet();
+                                }
+                            } else if (!careful || !board.isMine(row, col)) {
+                                board.revealCell(row, col, changes);
+                            }
+                            for (int c = 0; c < changes.size(); c++) {
+                                claimed[player][changes.get(c)] = true;
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failures[player] = e;
+                    }
+                }
+            }, "player-" + t);
+            threads[t].start();
+        }
+        start.countDown();
+        for (int t = 0; t < PLAYERS; t++) {
+            threads[t].join();
+            if (failures[t] != null) {
+                throw new AssertionError("player " + t + " failed", failures[t]);
+            }
+        }
+        return claimed;
+    }
+
+    // Flags the covered mines around a square; a careful player only flags those in its own share
+    private static void flagMinesAround(ConcurrentGameBoard board, int row, int col, int player) {
+        for (int i = Math.max(0, row - 1); i <= Math.min(board.getRows() - 1, row + 1); i++) {
+            for (int j = Math.max(0, col - 1); j <= Math.min(board.getColumns() - 1, col + 1); j++) {
+                if (board.isMine(i, j) && board.getState(i, j) == GameBoard.CellState.COVERED
+                        && (player < 0 || (i * board.getColumns() + j) % PLAYERS == player)) {
+                    board.toggleFlag(i, j);
+                }
+            }
+        }
+    }
+
+    // Every counter the board keeps, against a count of its squares and of the claims each thread saw
+    private static void assertMatchesRecount(ConcurrentGameBoard board, boolean[][] claimed) {
+        int rows = board.getRows();
+        int columns = board.getColumns();
+        int uncovered = 0;
+        int minesUncovered = 0;
+        int flags = 0;
+        for (int index = 0; index < rows * columns; index++) {
+            GameBoard.CellState state = board.getState(index / columns, index % columns);
+            int claims = 0;
+            for (int t = 0; t < PLAYERS; t++) {
+                if (claimed[t][index]) {
+                    claims++;
+                }
+            }
+            // Each uncovered square was claimed by exactly one move, and nothing else was claimed
+            assertEquals("square " + index, state == GameBoard.CellState.UNCOVERED ? 1 : 0, claims);
+            if (state == GameBoard.CellState.UNCOVERED) {
+                uncovered++;
+                if (board.isMine(index / columns, index % columns)) {
+                    minesUncovered++;
+                }
+            } else if (state == GameBoard.CellState.FLAGGED) {
+                flags++;
+            }
+        }
+        int safeCells = rows * columns - board.getTotalMines();
+        assertEquals(uncovered, board.getUncoveredCells());
+        assertEquals(flags, board.getFlagCount());
+        assertEquals(safeCells - (uncovered - minesUncovered), board.getSafeCellsCovered());
+        assertEquals(safeCells, board.getUncoveredCells() - minesUncovered + board.getSafeCellsCovered());
+
+        // One status: a finished game shows every mine, an unfinished one shows none
+        assertFalse(board.isGameOver() && board.isGameWon());
+        assertEquals(board.isGameOver() || board.isGameWon(), board.isGameFinished());
+        if (board.isGameFinished()) {
+            assertEquals(board.getTotalMines(), minesUncovered);
+        } else {
+            assertEquals(0, minesUncovered);
+            assertTrue(board.getSafeCellsCovered() > 0);
+        }
+        if (board.isGameWon()) {
+            assertEquals(0, board.getSafeCellsCovered());
+        }
+        if (board.isGameOver()) {
+            int losing = board.getLosingIndex();
+            assertTrue(board.isMine(losing / columns, losing % columns));
+        } else {
+            assertEquals(-1, board.getLosingIndex());
+        }
+    }
+}
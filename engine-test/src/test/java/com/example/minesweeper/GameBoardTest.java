@@ -0,0 +1,372 @@
+package com.example.minesweeper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.SplittableRandom;
+
+/*
+ GameBoard moves checked against a plain breadth-first model of the rules
+ */
+public class GameBoardTest {
+
+    @Test
+    public void floodOpensWholeEmpty4000x4000BoardFromTheMiddle() {
+        GameBoard board = new GameBoard(4000, 4000, 0, 1, false);
+
+        assertFalse(board.revealCell(2000, 2000));
+
+        assertEquals(4000 * 4000, board.getUncoveredCells());
+        assertEquals(4000 * 4000, board.getLastChanges().size());
+        assertTrue(board.isGameWon());
+        assertTrue(board.floodStackLength() <= 1024);
+    }
+
+    @Test
+    public void floodOpensWholeEmpty4000x4000BoardFromACorner() {
+        GameBoard board = new GameBoard(4000, 4000, 0, 1, false);
+
+        assertFalse(board.revealCell(3999, 0));
+
+        assertEquals(4000 * 4000, board.getUncoveredCells());
+        assertTrue(board.isGameWon());
+        assertTrue(board.floodStackLength() <= 1024);
+    }
+
+    @Test
+    public void floodOnSparse4000x4000BoardMatchesModel() {
+        GameBoard board = new GameBoard(4000, 4000, 1, 7, false);
+        Model model = new Model(board);
+
+        assertEquals(model.reveal(2000, 2000), board.revealCell(2000, 2000));
+
+        model.assertMatches(board);
+        assertTrue(board.getUncoveredCells() > 1000000);
+        assertTrue(board.floodStackLength() <= 1024);
+    }
+
+    @Test
+    public void revealsAndFlagsMatchModelOnRandomBoards() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int game = 0; game < 300; game++) {
+            int rows = 1 + random.nextInt(40);
+            int columns = 1 + random.nextInt(40);
+            int minesPercent = random.nextInt(26);
+            GameBoard board = new GameBoard(rows, columns, minesPercent, random.nextLong(), false);
+            Model model = new Model(board);
+
+            for (int move = 0; move < 60 && !board.isGameFinished(); move++) {
+                int row = random.nextInt(rows);
+                int col = random.nextInt(columns);
+                if (random.nextInt(4) == 0) {
+                    board.toggleFlag(row, col);
+                    model.toggleFlag(row, col);
+                } else {
+                    assertEquals(model.reveal(row, col), board.revealCell(row, col));
+                }
+                model.assertMatches(board);
+            }
+        }
+    }
+
+    @Test
+    public void minesPlacedAheadOfTheFirstTapMatchTheTap() {
+        GameBoard direct = new GameBoard(50, 50, 20, 11, true);
+        GameBoard ahead = new GameBoard(50, 50, 20, 11, true);
+
+        ahead.placeMinesAround(25, 30);
+        assertTrue(ahead.areMinesPlaced());
+        assertEquals(0, ahead.getUncoveredCells());
+        direct.revealCell(25, 30);
+        ahead.revealCell(25, 30);
+
+        for (int row = 0; row < 50; row++) {
+            for (int col = 0; col < 50; col++) {
+                assertEquals(direct.isMine(row, col), ahead.isMine(row, col));
+                assertEquals(direct.getState(row, col), ahead.getState(row, col));
+            }
+        }
+    }
+
+    @Test
+    public void chordOnAMisflaggedNumberHitsTheMineAndLoses() {
+        // The first board, in seed order, with a 1 that has a safe covered neighbour besides its mine
+        for (long seed = 1; ; seed++) {
+            GameBoard board = new GameBoard(8, 8, 15, seed, false);
+            for (int index = 0; index < 64; index++) {
+                int row = index / 8;
+                int col = index % 8;
+                if (board.isMine(row, col) || board.getAdjacentMines(row, col) != 1) {
+                    continue;
+                }
+                int mine = -1;
+                int safe = -1;
+                for (int i = Math.max(0, row - 1); i <= Math.min(7, row + 1); i++) {
+                    for (int j = Math.max(0, col - 1); j <= Math.min(7, col + 1); j++) {
+                        if (i == row && j == col) {
+                            continue;
+                        }
+                        if (board.isMine(i, j)) {
+                            mine = i * 8 + j;
+                        } else if (board.getAdjacentMines(i, j) > 0) {
+                            safe = i * 8 + j;
+                        }
+                    }
+                }
+                if (safe < 0) {
+                    continue;
+                }
+
+                assertFalse(board.revealCell(row, col));
+                board.toggleFlag(safe / 8, safe % 8);
+                assertTrue(board.chord(row, col));
+
+                assertTrue(board.isGameOver());
+                assertFalse(board.isGameWon());
+                assertEquals(GameBoard.CellState.UNCOVERED, board.getState(mine / 8, mine % 8));
+                assertEquals(GameBoard.CellState.FLAGGED, board.getState(safe / 8, safe % 8));
+                boolean mineChanged = false;
+                for (int k = 0; k < board.getLastChanges().size(); k++) {
+                    mineChanged |= board.getLastChanges().get(k) == mine;
+                }
+                assertTrue(mineChanged);
+                assertCountersMatchRecount(board);
+                return;
+            }
+        }
+    }
+
+    @Test
+    public void countersMatchRecountUnderRandomMovesAndUndo() {
+        SplittableRandom random = new SplittableRandom(16);
+        int chords = 0;
+        int undos = 0;
+        for (int game = 0; game < 200; game++) {
+            int rows = 1 + random.nextInt(30);
+            int columns = 1 + random.nextInt(30);
+            GameBoard board = new GameBoard(rows, columns, random.nextInt(31), random.nextLong(),
+                    random.nextBoolean());
+            MoveJournal journal = new MoveJournal(board);
+
+            for (int move = 0; move < 150; move++) {
+                int row = random.nextInt(rows);
+                int col = random.nextInt(columns);
+                switch (random.nextInt(6)) {
+                    case 0:
+                    case 1:
+                        journal.revealCell(row, col);
+                        break;
+                    case 2:
+                        journal.toggleFlag(row, col);
+                        break;
+                    case 3:
+                        // Flag the mines around a number first, so the chord has something to open
+                        if (board.getState(row, col) == GameBoard.CellState.UNCOVERED && !board.isGameFinished()) {
+                            flagMinesAround(journal, board, row, col);
+                            int before = board.getUncoveredCells();
+                            journal.chord(row, col);
+                            if (board.getUncoveredCells() > before) {
+                                chords++;
+                            }
+                        }
+                        break;
+                    case 4:
+                        if (journal.canUndo()) {
+                            journal.undo();
+                            undos++;
+                        }
+                        break;
+                    default:
+                        journal.redo();
+                        break;
+                }
+                assertCountersMatchRecount(board);
+            }
+            journal.close();
+        }
+        assertTrue(chords > 100);
+        assertTrue(undos > 1000);
+    }
+
+    private static void flagMinesAround(MoveJournal journal, GameBoard board, int row, int col) {
+        for (int i = Math.max(0, row - 1); i <= Math.min(board.getRows() - 1, row + 1); i++) {
+            for (int j = Math.max(0, col - 1); j <= Math.min(board.getColumns() - 1, col + 1); j++) {
+                if (board.isMine(i, j) && board.getState(i, j) == GameBoard.CellState.COVERED) {
+                    journal.toggleFlag(i, j);
+                }
+            }
+        }
+    }
+
+    // Every counter GameBoard keeps, against a count taken from getState and isMine
+    private static void assertCountersMatchRecount(GameBoard board) {
+        int rows = board.getRows();
+        int columns = board.getColumns();
+        int uncovered = 0;
+        int flags = 0;
+        int mines = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                GameBoard.CellState state = board.getState(row, col);
+                if (state == GameBoard.CellState.UNCOVERED) {
+                    uncovered++;
+                } else if (state == GameBoard.CellState.FLAGGED) {
+                    flags++;
+                }
+                if (board.isMine(row, col)) {
+                    mines++;
+                }
+                int adjacentFlags = 0;
+                for (int i = Math.max(0, row - 1); i <= Math.min(rows - 1, row + 1); i++) {
+                    for (int j = Math.max(0, col - 1); j <= Math.min(columns - 1, col + 1); j++) {
+                        if ((i != row || j != col) && board.getState(i, j) == GameBoard.CellState.FLAGGED) {
+                            adjacentFlags++;
+                        }
+                    }
+                }
+                assertEquals(adjacentFlags, board.getAdjacentFlags(row, col));
+            }
+        }
+        assertEquals(uncovered, board.getUncoveredCells());
+        assertEquals(rows * columns - uncovered, board.getCoveredCells());
+        assertEquals(flags, board.getFlagCount());
+        assertEquals(board.getTotalMines() - flags, board.getMinesRemaining());
+
+        int[] mineIndices = board.getMineIndices();
+        if (board.areMinesPlaced()) {
+            assertEquals(board.getTotalMines(), mines);
+            assertEquals(mines, mineIndices.length);
+            boolean[] listed = new boolean[rows * columns];
+            for (int m = 0; m < mineIndices.length; m++) {
+                assertTrue(board.isMine(mineIndices[m] / columns, mineIndices[m] % columns));
+                assertFalse(listed[mineIndices[m]]);
+                listed[mineIndices[m]] = true;
+            }
+        } else {
+            assertEquals(0, mines);
+            assertEquals(0, mineIndices.length);
+        }
+
+        // A finished game shows every mine; an unfinished one still has a safe square to open
+        if (board.isGameWon()) {
+            assertEquals(rows * columns, uncovered);
+        } else if (board.isGameOver()) {
+            for (int m = 0; m < mineIndices.length; m++) {
+                assertEquals(GameBoard.CellState.UNCOVERED,
+                        board.getState(mineIndices[m] / columns, mineIndices[m] % columns));
+            }
+        } else {
+            assertTrue(uncovered < rows * columns - board.getTotalMines());
+        }
+        assertFalse(board.isGameOver() && board.isGameWon());
+    }
+
+    /*
+     the rules written the obvious way: a breadth-first flood over a state array
+     */
+    static final class Model {
+        static final int COVERED = 0;
+        static final int UNCOVERED = 1;
+        static final int FLAGGED = 2;
+
+        final int rows;
+        final int columns;
+        final boolean[] mine;
+        final int[] adjacent;
+        final int[] state;
+        int safeCells;
+        int uncovered;
+        boolean lost;
+        boolean won;
+
+        Model(GameBoard board) {
+            rows = board.getRows();
+            columns = board.getColumns();
+            mine = new boolean[rows * columns];
+            adjacent = new int[rows * columns];
+            state = new int[rows * columns];
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < columns; j++) {
+                    int index = i * columns + j;
+                    mine[index] = board.isMine(i, j);
+                    adjacent[index] = board.getAdjacentMines(i, j);
+                    if (!mine[index]) {
+                        safeCells++;
+                    }
+                }
+            }
+        }
+
+        boolean reveal(int row, int col) {
+            int index = row * columns + col;
+            if (lost || won || state[index] != COVERED) {
+                return false;
+            }
+            if (mine[index]) {
+                lost = true;
+                showMines();
+                return true;
+            }
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            open(index);
+            queue.add(index);
+            while (!queue.isEmpty()) {
+                int square = queue.poll();
+                if (adjacent[square] != 0) {
+                    continue;
+                }
+                for (int i = -1; i <= 1; i++) {
+                    for (int j = -1; j <= 1; j++) {
+                        int r = square / columns + i;
+                        int c = square % columns + j;
+                        if (r >= 0 && r < rows && c >= 0 && c < columns
+                                && state[r * columns + c] == COVERED) {
+                            open(r * columns + c);
+                            queue.add(r * columns + c);
+                        }
+                    }
+                }
+            }
+            if (uncovered == safeCells) {
+                won = true;
+                showMines();
+            }
+            return false;
+        }
+
+        void toggleFlag(int row, int col) {
+            int index = row * columns + col;
+            if (lost || won || state[index] == UNCOVERED) {
+                return;
+            }
+            state[index] = state[index] == FLAGGED ? COVERED : FLAGGED;
+        }
+
+        private void open(int index) {
+            state[index] = UNCOVERED;
+            uncovered++;
+        }
+
+        private void showMines() {
+            for (int index = 0; index < state.length; index++) {
+                if (mine[index] && state[index] != UNCOVERED) {
+                    open(index);
+                }
+            }
+        }
+
+        void assertMatches(GameBoard board) {
+            for (int index = 0; index < state.length; index++) {
+                assertEquals("square " + index, state[index],
+                        board.getState(index / columns, index % columns).ordinal());
+            }
+            assertEquals(uncovered, board.getUncoveredCells());
+            assertEquals(lost, board.isGameOver());
+            assertEquals(won, board.isGameWon());
+        }
+    }
+}
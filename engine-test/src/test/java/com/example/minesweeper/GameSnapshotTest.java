@@ -0,0 +1,115 @@
+package com.example.minesweeper;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/*
+ GameSnapshot round trips, compared square by square with the board that was saved
+ */
+public class GameSnapshotTest {
+
+    @Test
+    public void restoresRandomGamesExactly() {
+        SplittableRandom random = new SplittableRandom(17);
+        GameBoard.AdjacencyStrategy[] strategies = GameBoard.AdjacencyStrategy.values();
+        for (int game = 0; game < 300; game++) {
+            int rows = 1 + random.nextInt(60);
+            int columns = 1 + random.nextInt(60);
+            GameBoard board = new GameBoard(rows, columns, random.nextInt(101), random.nextLong(),
+                    random.nextBoolean(), strategies[random.nextInt(strategies.length)]);
+            int moves = random.nextInt(80);
+            for (int move = 0; move < moves && !board.isGameFinished(); move++) {
+                if (random.nextInt(3) == 0) {
+                    board.toggleFlag(random.nextInt(rows), random.nextInt(columns));
+                } else {
+                    board.revealCell(random.nextInt(rows), random.nextInt(columns));
+                }
+            }
+            assertSameGame(board, GameBoard.fromSnapshot(board.toSnapshot()));
+        }
+    }
+
+    @Test
+    public void restoresSparseAndDenseLargeBoards() {
+        for (int minesPercent : new int[] {1, 20}) {
+            GameBoard board = new GameBoard(1000, 1000, minesPercent, 9, true, GameBoard.AdjacencyStrategy.SCAN);
+            board.revealCell(500, 500);
+            board.toggleFlag(0, 0);
+            assertSameGame(board, GameBoard.fromSnapshot(board.toSnapshot()));
+        }
+    }
+
+    @Test
+    public void storedMinesMatchTheSeedForReplay() {
+        GameBoard board = new GameBoard(30, 30, 15, 4, true);
+        board.revealCell(10, 10);
+        GameBoard restored = GameBoard.fromSnapshot(board.toSnapshot());
+
+        // A journal on the restored board places the seed's mines around the saved first tap
+        GameBoard replayed = new MoveJournal(restored).replay(0);
+        for (int row = 0; row < 30; row++) {
+            for (int col = 0; col < 30; col++) {
+                assertEquals(restored.isMine(row, col), replayed.isMine(row, col));
+                assertEquals(restored.getAdjacentMines(row, col), replayed.getAdjacentMines(row, col));
+            }
+        }
+    }
+
+    @Test
+    public void rejectsDamagedSnapshots() {
+        GameBoard board = new GameBoard(40, 40, 10, 5, true);
+        board.revealCell(20, 20);
+        byte[] snapshot = board.toSnapshot();
+
+        assertRejected(Arrays.copyOf(snapshot, 10));
+        assertRejected(Arrays.copyOf(snapshot, snapshot.length - 1));
+        byte[] version = snapshot.clone();
+        version[2] = 1;
+        assertRejected(version);
+        // The mine encoding follows the 34 bytes of fixed fields
+        byte[] mineEncoding = snapshot.clone();
+        mineEncoding[34] = 7;
+        assertRejected(mineEncoding);
+    }
+
+    private static void assertRejected(byte[] snapshot) {
+        try {
+            GameBoard.fromSnapshot(snapshot);
+            fail("Damaged snapshot was accepted");
+        } catch (IllegalArgumentException expected) {
+            // The only exception a bad snapshot may cause
+        }
+    }
+
+    private static void assertSameGame(GameBoard expected, GameBoard actual) {
+        assertEquals(expected.getRows(), actual.getRows());
+        assertEquals(expected.getColumns(), actual.getColumns());
+        for (int row = 0; row < expected.getRows(); row++) {
+            for (int col = 0; col < expected.getColumns(); col++) {
+                assertEquals(expected.getState(row, col), actual.getState(row, col));
+                assertEquals(expected.isMine(row, col), actual.isMine(row, col));
+                assertEquals(expected.getAdjacentMines(row, col), actual.getAdjacentMines(row, col));
+                assertEquals(expected.getAdjacentFlags(row, col), actual.getAdjacentFlags(row, col));
+            }
+        }
+        int[] expectedMines = expected.getMineIndices();
+        int[] actualMines = actual.getMineIndices();
+        Arrays.sort(expectedMines);
+        Arrays.sort(actualMines);
+        assertArrayEquals(expectedMines, actualMines);
+        assertEquals(expected.getUncoveredCells(), actual.getUncoveredCells());
+        assertEquals(expected.getFlagCount(), actual.getFlagCount());
+        assertEquals(expected.getSeed(), actual.getSeed());
+        assertEquals(expected.getFirstTapIndex(), actual.getFirstTapIndex());
+        assertEquals(expected.areMinesPlaced(), actual.areMinesPlaced());
+        assertEquals(expected.isGameOver(), actual.isGameOver());
+        assertEquals(expected.isGameWon(), actual.isGameWon());
+        assertEquals(expected.isNoGuess(), actual.isNoGuess());
+    }
+}
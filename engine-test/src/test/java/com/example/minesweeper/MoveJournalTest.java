@@ -0,0 +1,170 @@
+package com.example.minesweeper;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/*
+ undo and redo through MoveJournal, checked against copies of the board taken after every move
+ */
+public class MoveJournalTest {
+
+    @Test
+    public void undoAndRedoWalkBackThroughEveryPosition() {
+        SplittableRandom random = new SplittableRandom(18);
+        for (int game = 0; game < 200; game++) {
+            int rows = 1 + random.nextInt(25);
+            int columns = 1 + random.nextInt(25);
+            GameBoard board = new GameBoard(rows, columns, random.nextInt(31), random.nextLong(),
+                    random.nextBoolean());
+            MoveJournal journal = new MoveJournal(board);
+            List<int[]> positions = new ArrayList<>();
+            positions.add(position(board));
+
+            for (int move = 0; move < 60 && !board.isGameFinished(); move++) {
+                int row = random.nextInt(rows);
+                int col = random.nextInt(columns);
+                int before = journal.getMoveCount();
+                if (random.nextInt(3) == 0) {
+                    journal.toggleFlag(row, col);
+                } else if (board.getState(row, col) == GameBoard.CellState.UNCOVERED) {
+                    journal.chord(row, col);
+                } else {
+                    journal.revealCell(row, col);
+                }
+                if (journal.getMoveCount() > before) {
+                    positions.add(position(board));
+                }
+            }
+
+            for (int p = positions.size() - 2; p >= 0; p--) {
+                journal.undo();
+                assertArrayEquals(positions.get(p), position(board));
+            }
+            assertFalse(journal.canUndo());
+            for (int p = 1; p < positions.size(); p++) {
+                journal.redo();
+                assertArrayEquals(positions.get(p), position(board));
+            }
+            assertFalse(journal.canRedo());
+            journal.close();
+        }
+    }
+
+    @Test
+    public void undoPutsBackFlagsOnMinesShownByTheLosingMove() {
+        GameBoard board = new GameBoard(10, 10, 20, 3, true);
+        MoveJournal journal = new MoveJournal(board);
+        journal.revealCell(5, 5);
+        int[] mines = board.getMineIndices();
+        journal.toggleFlag(mines[0] / 10, mines[0] % 10);
+        journal.toggleFlag(mines[1] / 10, mines[1] % 10);
+        int[] beforeLoss = position(board);
+
+        assertTrue(journal.revealCell(mines[2] / 10, mines[2] % 10));
+        assertEquals(0, board.getFlagCount());
+        journal.undo();
+
+        assertArrayEquals(beforeLoss, position(board));
+        assertEquals(2, board.getFlagCount());
+        assertFalse(board.isGameFinished());
+    }
+
+    @Test
+    public void wholeBoardFloodIsRecordedInAFewBytes() {
+        GameBoard board = new GameBoard(4000, 4000, 0, 1, false);
+        MoveJournal journal = new MoveJournal(board);
+        journal.revealCell(2000, 2000);
+
+        assertTrue(journal.getLogBytes() < 16);
+        journal.undo();
+        assertEquals(0, board.getUncoveredCells());
+        assertFalse(board.isGameWon());
+        journal.redo();
+        assertEquals(4000 * 4000, board.getUncoveredCells());
+    }
+
+    @Test
+    public void sparseFloodIsRecordedWithoutItsArea() {
+        GameBoard board = new GameBoard(2000, 2000, 1, 7, false);
+        MoveJournal journal = new MoveJournal(board);
+        int[] before = position(board);
+        journal.revealCell(1000, 1000);
+        int[] after = position(board);
+        assertTrue(board.getUncoveredCells() > 1000000);
+        // A flag, then a reveal of the first safe square the flood left covered
+        int mine = board.getMineIndices()[0];
+        journal.toggleFlag(mine / 2000, mine % 2000);
+        int bytesBefore = journal.getLogBytes();
+        for (int index = 0; index < 2000 * 2000; index++) {
+            if (board.getState(index / 2000, index % 2000) == GameBoard.CellState.COVERED
+                    && !board.isMine(index / 2000, index % 2000)) {
+                journal.revealCell(index / 2000, index % 2000);
+                break;
+            }
+        }
+
+        assertTrue(journal.getLogBytes() < 64);
+        assertTrue(journal.getLogBytes() - bytesBefore < 64);
+        journal.undo();
+        journal.undo();
+        assertArrayEquals(after, position(board));
+        journal.undo();
+        assertArrayEquals(before, position(board));
+    }
+
+    @Test
+    public void longSessionSpillsToItsFileAndStillUndoes() throws IOException {
+        File spill = File.createTempFile("move_log", ".bin");
+        GameBoard board = new GameBoard(200, 200, 0, 1, false);
+        MoveJournal journal = new MoveJournal(board, spill);
+        // Flag toggles on far apart squares, until the log is past the heap limit
+        int moves = 0;
+        while (journal.getLogBytes() <= MoveLog.SPILL_BYTES) {
+            journal.toggleFlag(199, moves % 200);
+            moves++;
+        }
+        assertTrue(journal.isSpilled());
+        while (journal.canUndo()) {
+            journal.undo();
+        }
+        assertEquals(0, board.getFlagCount());
+        assertEquals(moves, replayAll(journal));
+
+        journal.close();
+        assertFalse(spill.exists());
+    }
+
+    private static int replayAll(MoveJournal journal) {
+        int count = 0;
+        while (journal.canRedo()) {
+            journal.redo();
+            count++;
+        }
+        return count;
+    }
+
+    private static int[] position(GameBoard board) {
+        int[] position = new int[board.getRows() * board.getColumns() + 4];
+        for (int index = 0; index < board.getRows() * board.getColumns(); index++) {
+            int row = index / board.getColumns();
+            int col = index % board.getColumns();
+            position[index] = board.getState(row, col).ordinal() << 4 | board.getAdjacentFlags(row, col);
+        }
+        int end = board.getRows() * board.getColumns();
+        position[end] = board.getUncoveredCells();
+        position[end + 1] = board.getFlagCount();
+        position[end + 2] = board.isGameOver() ? 1 : 0;
+        position[end + 3] = board.isGameWon() ? 1 : 0;
+        return position;
+    }
+}
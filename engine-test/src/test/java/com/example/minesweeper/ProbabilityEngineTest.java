@@ -0,0 +1,160 @@
+package com.example.minesweeper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/*
+ ProbabilityEngine checked against counting every mine placement on boards small enough to list
+ */
+public class ProbabilityEngineTest {
+
+    @Test
+    public void matchesBruteForceOnSmallBoards() {
+        SplittableRandom random = new SplittableRandom(3);
+        int checked = 0;
+        for (int game = 0; game < 200; game++) {
+            GameBoard board = new GameBoard(4 + random.nextInt(2), 4 + random.nextInt(2),
+                    10 + random.nextInt(15), random.nextLong(), false);
+            board.revealCell(random.nextInt(board.getRows()), random.nextInt(board.getColumns()));
+            if (board.isGameFinished() || board.getCoveredCells() > 20) {
+                continue;
+            }
+            ProbabilityEngine engine = new ProbabilityEngine(board, board.getTotalMines());
+            engine.compute();
+            assertTrue(engine.isExact());
+            assertEquals(0, engine.getSkippedComponentCount());
+
+            double[] expected = bruteForce(board);
+            for (int index = 0; index < expected.length; index++) {
+                int row = index / board.getColumns();
+                int col = index % board.getColumns();
+                if (Double.isNaN(expected[index])) {
+                    assertTrue(Double.isNaN(engine.getProbability(row, col)));
+                } else {
+                    assertEquals("square " + index, expected[index], engine.getProbability(row, col), 1e-9);
+                }
+            }
+            checked++;
+        }
+        assertTrue(checked > 50);
+    }
+
+    @Test
+    public void reportsComponentsOverTheLimit() {
+        SplittableRandom random = new SplittableRandom(5);
+        int approximate = 0;
+        for (int game = 0; game < 100; game++) {
+            GameBoard board = new GameBoard(9, 9, 15, random.nextLong(), false);
+            board.revealCell(4, 4);
+            if (board.isGameFinished()) {
+                continue;
+            }
+            ProbabilityEngine engine = new ProbabilityEngine(board, board.getTotalMines(), 4);
+            double[] probabilities = engine.compute();
+            ProbabilityEngine unlimited = new ProbabilityEngine(board, board.getTotalMines(), 81);
+            unlimited.compute();
+            assertTrue(unlimited.isExact());
+
+            if (engine.isExact()) {
+                assertEquals(0, engine.getSkippedCellCount());
+                assertEquals(unlimited.getComponentCount(), engine.getComponentCount());
+            } else {
+                approximate++;
+                assertTrue(engine.getSkippedCellCount() > 4 * engine.getSkippedComponentCount());
+                assertEquals(unlimited.getComponentCount(),
+                        engine.getComponentCount() + engine.getSkippedComponentCount());
+            }
+            // Skipped squares still hold their share of the mines
+            double sum = 0;
+            for (double probability : probabilities) {
+                if (!Double.isNaN(probability)) {
+                    sum += probability;
+                }
+            }
+            assertEquals(board.getTotalMines(), sum, 1e-6);
+        }
+        assertTrue(approximate > 0);
+    }
+
+    @Test
+    public void boardWithoutAFrontierIsExact() {
+        GameBoard board = new GameBoard(8, 8, 0, 1, false);
+        board.revealCell(0, 0);
+        ProbabilityEngine engine = new ProbabilityEngine(board, 0);
+        engine.compute();
+
+        assertTrue(engine.isExact());
+        assertEquals(0, engine.getComponentCount());
+        assertEquals(0, engine.getSkippedComponentCount());
+        assertTrue(Double.isNaN(engine.getProbability(0, 0)));
+    }
+
+    // Mine probability of each covered square over every placement that fits the numbers
+    private static double[] bruteForce(GameBoard board) {
+        int rows = board.getRows();
+        int columns = board.getColumns();
+        int[] covered = new int[rows * columns];
+        int coveredCount = 0;
+        for (int index = 0; index < rows * columns; index++) {
+            if (board.getState(index / columns, index % columns) != GameBoard.CellState.UNCOVERED) {
+                covered[coveredCount++] = index;
+            }
+        }
+        double[] mineCounts = new double[rows * columns];
+        long placements = 0;
+        boolean[] mine = new boolean[rows * columns];
+        for (int subset = 0; subset < 1 << coveredCount; subset++) {
+            if (Integer.bitCount(subset) != board.getTotalMines()) {
+                continue;
+            }
+            for (int c = 0; c < coveredCount; c++) {
+                mine[covered[c]] = (subset & 1 << c) != 0;
+            }
+            if (!fits(board, mine)) {
+                continue;
+            }
+            placements++;
+            for (int c = 0; c < coveredCount; c++) {
+                if (mine[covered[c]]) {
+                    mineCounts[covered[c]]++;
+                }
+            }
+        }
+        double[] probabilities = new double[rows * columns];
+        Arrays.fill(probabilities, Double.NaN);
+        for (int c = 0; c < coveredCount; c++) {
+            probabilities[covered[c]] = mineCounts[covered[c]] / placements;
+        }
+        return probabilities;
+    }
+
+    // Whether every uncovered number sees exactly its count of mines
+    private static boolean fits(GameBoard board, boolean[] mine) {
+        int rows = board.getRows();
+        int columns = board.getColumns();
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                if (board.getState(row, col) != GameBoard.CellState.UNCOVERED) {
+                    continue;
+                }
+                int mines = 0;
+                for (int i = Math.max(0, row - 1); i <= Math.min(rows - 1, row + 1); i++) {
+                    for (int j = Math.max(0, col - 1); j <= Math.min(columns - 1, col + 1); j++) {
+                        if (mine[i * columns + j]) {
+                            mines++;
+                        }
+                    }
+                }
+                if (mines != board.getAdjacentMines(row, col)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
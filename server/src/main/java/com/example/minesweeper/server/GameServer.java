@@ -0,0 +1,249 @@
+package com.example.minesweeper.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ non-blocking server hosting one Minesweeper session per connection, see Protocol.
+
+ A few event loops, one per core by default, each own a Selector and the connections handed to
+ them. The first loop also accepts and deals new connections out round-robin. A connection, and
+ the GameBoard it plays, is only ever touched by its own loop. So there are no locks, and the
+ only shared state is the command counter.
+
+ An error only ever costs the connection it happened on. If accept itself fails, most likely
+ because the process is out of file descriptors, the first loop stops accepting for
+ ACCEPT_PAUSE_MILLIS and carries on serving the sessions it has.
+
+ ./gradlew :server:run --args="--port 7777 --loops 4"
+ */
+public final class GameServer implements AutoCloseable {
+
+    private static final long ACCEPT_PAUSE_MILLIS = 100;
+
+    private final ServerSocketChannel serverChannel;
+    private final SelectionKey acceptKey;
+    private final EventLoop[] loops;
+    private final LongAdder commands = new LongAdder();
+    private volatile boolean running = true;
+    private int nextLoop;
+    // System.nanoTime() at which accepting resumes after a failed accept, 0 while accepting
+    private long acceptPausedUntil;
+
+    public GameServer(InetSocketAddress address, int loopCount) throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address, 1024);
+        serverChannel.configureBlocking(false);
+        SplittableRandom random = new SplittableRandom();
+        loops = new EventLoop[Math.max(1, loopCount)];
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new EventLoop(Selector.open(), random.split(), "game-server-" + i);
+        }
+        acceptKey = serverChannel.register(loops[0].selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public void start() {
+        for (EventLoop loop : loops) {
+            loop.thread.start();
+        }
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    // Requests handled so far, over every connection
+    public long getCommands() {
+        return commands.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        for (EventLoop loop : loops) {
+            loop.selector.wakeup();
+        }
+        for (EventLoop loop : loops) {
+            try {
+                loop.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        serverChannel.close();
+    }
+
+    // Runs on the first loop only
+    private void accept() {
+        while (true) {
+            SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+            } catch (IOException e) {
+                System.err.println("Accept failed, pausing for " + ACCEPT_PAUSE_MILLIS + " ms: " + e);
+                acceptKey.interestOps(0);
+                acceptPausedUntil = System.nanoTime() + ACCEPT_PAUSE_MILLIS * 1_000_000L;
+                return;
+            }
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            } catch (IOException e) {
+                System.err.println("Dropped a new connection: " + e);
+                closeQuietly(channel);
+                continue;
+            }
+            EventLoop loop = loops[nextLoop];
+            nextLoop = (nextLoop + 1) % loops.length;
+            loop.adopt(channel);
+        }
+    }
+
+    // How long the first loop may block in select before accepting has to resume; 0 for no limit
+    private long acceptPauseLeftMillis() {
+        if (acceptPausedUntil == 0) {
+            return 0;
+        }
+        long left = acceptPausedUntil - System.nanoTime();
+        if (left > 0) {
+            return Math.max(1, left / 1_000_000L);
+        }
+        acceptPausedUntil = 0;
+        acceptKey.interestOps(SelectionKey.OP_ACCEPT);
+        return 0;
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Already gone
+        }
+    }
+
+    private final class EventLoop implements Runnable {
+        private final Selector selector;
+        private final SplittableRandom random;
+        private final Thread thread;
+        // Accepted on the first loop, registered by this one
+        private final ConcurrentLinkedQueue<SocketChannel> adopted = new ConcurrentLinkedQueue<>();
+
+        EventLoop(Selector selector, SplittableRandom random, String name) {
+            this.selector = selector;
+            this.random = random;
+            this.thread = new Thread(this, name);
+        }
+
+        void adopt(SocketChannel channel) {
+            if (Thread.currentThread() == thread) {
+                register(channel);
+            } else {
+                adopted.add(channel);
+                selector.wakeup();
+            }
+        }
+
+        private void register(SocketChannel channel) {
+            try {
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                key.attach(new ServerConnection(channel, key, random.split(), commands));
+            } catch (IOException e) {
+                System.err.println("Dropped a new connection: " + e);
+                closeQuietly(channel);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select(this == loops[0] ? acceptPauseLeftMillis() : 0);
+                    SocketChannel channel;
+                    while ((channel = adopted.poll()) != null) {
+                        register(channel);
+                    }
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        handle(key);
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println(thread.getName() + " stopped: " + e);
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    if (key.attachment() instanceof ServerConnection) {
+                        ((ServerConnection) key.attachment()).close();
+                    }
+                }
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                    // Nothing left to release
+                }
+            }
+        }
+
+        private void handle(SelectionKey key) {
+            if (!key.isValid()) {
+                return;
+            }
+            if (key.isAcceptable()) {
+                accept();
+                return;
+            }
+            ServerConnection connection = (ServerConnection) key.attachment();
+            try {
+                if (key.isWritable()) {
+                    connection.flush();
+                }
+                if (key.isValid() && key.isReadable() && !connection.read()) {
+                    connection.close();
+                }
+            } catch (IOException e) {
+                // The client went away mid-request; only its own session is lost
+                connection.close();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = 7777;
+        int loopCount = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--loops":
+                    loopCount = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        GameServer server = new GameServer(new InetSocketAddress(port), loopCount);
+        server.start();
+        System.out.println("Listening on port " + server.getPort() + " with " + loopCount + " event loops");
+        long last = 0;
+        while (true) {
+            Thread.sleep(1000);
+            long now = server.getCommands();
+            System.out.printf("%,d commands/s%n", now - last);
+            last = now;
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.example.minesweeper.server;
+
+import com.example.minesweeper.LatencyHistogram;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ drives a GameServer with many loopback clients and reports commands per second and latency
+ percentiles. Every client plays its own game and keeps one request in flight: it reveals a
+ random square it has not seen uncovered yet, and starts a new game when the last one ends.
+ Latency runs from writing a request to reading the last byte of its response.
+
+ Client threads each own a Selector and a LatencyHistogram, merged at the end, so measuring
+ adds no shared state beyond a LongAdder progress counter. The progress counter also counts
+ warm-up, so the per-second lines show the server warming up; only the histograms wait for the
+ measured window. A client whose connection fails is closed and counted, and the others carry
+ on. Without --port a server is started in the same JVM on a free port, so the whole test
+ needs nothing but localhost.
+
+ ./gradlew :server:loadTest --args="--clients 2000 --seconds 10 --size 16x16 --mines 15"
+
+ Other options: --host, --port, --threads, --loops (for the embedded server), --warmup-seconds.
+ */
+public final class LoadGenerator {
+
+    private String host = "127.0.0.1";
+    private int port = -1;
+    private int clients = 1000;
+    private int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private int loops = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private int seconds = 10;
+    private int warmupSeconds = 2;
+    private int rows = 16;
+    private int columns = 16;
+    private int minesPercent = 15;
+
+    // Responses read, warm-up included
+    private final LongAdder completed = new LongAdder();
+    private volatile long measureFrom;
+    private volatile long stopAt;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        LoadGenerator generator = new LoadGenerator();
+        generator.parseArguments(args);
+        generator.run();
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--host":
+                    host = value;
+                    break;
+                case "--port":
+                    port = Integer.parseInt(value);
+                    break;
+                case "--clients":
+                    clients = Integer.parseInt(value);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--loops":
+                    loops = Integer.parseInt(value);
+                    break;
+                case "--seconds":
+                    seconds = Integer.parseInt(value);
+                    break;
+                case "--warmup-seconds":
+                    warmupSeconds = Integer.parseInt(value);
+                    break;
+                case "--size":
+                    rows = Integer.parseInt(value.substring(0, value.indexOf('x')));
+                    columns = Integer.parseInt(value.substring(value.indexOf('x') + 1));
+                    break;
+                case "--mines":
+                    minesPercent = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (args.length % 2 != 0) {
+            throw new IllegalArgumentException("Missing value for " + args[args.length - 1]);
+        }
+    }
+
+    private void run() throws IOException, InterruptedException {
+        GameServer server = null;
+        if (port < 0) {
+            server = new GameServer(new InetSocketAddress(host, 0), loops);
+            server.start();
+            port = server.getPort();
+            System.out.println("Embedded server on port " + port + " with " + loops + " event loops");
+        }
+        System.out.printf("%,d clients on %d threads, %dx%d boards at %d%%, %ds after %ds warm-up%n",
+                clients, threads, rows, columns, minesPercent, seconds, warmupSeconds);
+
+        playOneGame();
+
+        long start = System.nanoTime();
+        measureFrom = start + warmupSeconds * 1_000_000_000L;
+        stopAt = measureFrom + seconds * 1_000_000_000L;
+        SplittableRandom random = new SplittableRandom();
+        ClientLoop[] clientLoops = new ClientLoop[Math.max(1, threads)];
+        for (int t = 0; t < clientLoops.length; t++) {
+            int share = clients / clientLoops.length + (t < clients % clientLoops.length ? 1 : 0);
+            clientLoops[t] = new ClientLoop(share, random.split(), "load-client-" + t);
+            clientLoops[t].thread.start();
+        }
+
+        long last = 0;
+        while (System.nanoTime() < stopAt) {
+            Thread.sleep(1000);
+            long now = completed.sum();
+            System.out.printf(System.nanoTime() < measureFrom ? "%,d commands/s (warm-up)%n" : "%,d commands/s%n",
+                    now - last);
+            last = now;
+        }
+
+        LatencyHistogram total = new LatencyHistogram("latency");
+        long measured = 0;
+        for (ClientLoop loop : clientLoops) {
+            loop.thread.join();
+            total.add(loop.latency);
+            measured += loop.latency.getCount();
+        }
+        int failedClients = 0;
+        for (ClientLoop loop : clientLoops) {
+            failedClients += loop.failedClients;
+        }
+        if (failedClients > 0) {
+            System.out.printf("%,d of %,d clients failed, see above%n", failedClients, clients);
+        }
+        System.out.printf("%,.0f commands/s over %ds%n", measured / (double) seconds, seconds);
+        System.out.println(total.summary());
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    /*
+     plays a short game on one blocking connection before the load starts. Clients beyond the
+     file descriptor limit fail to connect, and from then on the process cannot open a class
+     file either, so this loads every class the clients and an embedded server use while it
+     still can; closing a Selector loads the last of the JDK's
+     */
+    private void playOneGame() throws IOException {
+        try (SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port))) {
+            ByteBuffer buffer = ByteBuffer.allocate(Protocol.REQUEST_BYTES);
+            Protocol.writeRequest(buffer, Protocol.NEW_GAME, rows << 16 | columns, minesPercent);
+            exchange(channel, buffer);
+            buffer.clear();
+            Protocol.writeRequest(buffer, Protocol.REVEAL, rows / 2, columns / 2);
+            exchange(channel, buffer);
+        }
+        Selector.open().close();
+    }
+
+    // Sends one request and reads its whole response
+    private static void exchange(SocketChannel channel, ByteBuffer request) throws IOException {
+        request.flip();
+        while (request.hasRemaining()) {
+            channel.write(request);
+        }
+        ByteBuffer response = ByteBuffer.allocate(Protocol.RESPONSE_HEADER_BYTES);
+        while (true) {
+            if (channel.read(response) < 0) {
+                throw new IOException("Server closed the connection");
+            }
+            response.flip();
+            int length = Protocol.responseLength(response, 0);
+            if (length >= 0 && response.remaining() >= length) {
+                return;
+            }
+            if (length > response.capacity()) {
+                ByteBuffer grown = ByteBuffer.allocate(length);
+                grown.put(response);
+                response = grown;
+            } else {
+                response.compact();
+            }
+        }
+    }
+
+    /*
+     one thread's share of the clients on one Selector
+     */
+    private final class ClientLoop implements Runnable {
+        private final int clientCount;
+        private final SplittableRandom random;
+        private final Thread thread;
+        private final LatencyHistogram latency = new LatencyHistogram("latency");
+        // Clients closed after an error; read once the thread has been joined
+        private int failedClients;
+
+        ClientLoop(int clientCount, SplittableRandom random, String name) {
+            this.clientCount = clientCount;
+            this.random = random;
+            this.thread = new Thread(this, name);
+        }
+
+        @Override
+        public void run() {
+            try (Selector selector = Selector.open()) {
+                for (int c = 0; c < clientCount; c++) {
+                    SocketChannel channel = null;
+                    try {
+                        channel = SocketChannel.open();
+                        channel.configureBlocking(false);
+                        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                        channel.connect(new InetSocketAddress(host, port));
+                        SelectionKey key = channel.register(selector, SelectionKey.OP_CONNECT);
+                        key.attach(new Client(channel, key, random.split()));
+                    } catch (IOException e) {
+                        fail(channel, e);
+                    }
+                }
+                while (System.nanoTime() < stopAt) {
+                    selector.select(100);
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        try {
+                            ((Client) key.attachment()).handle(latency);
+                        } catch (IOException e) {
+                            fail((SocketChannel) key.channel(), e);
+                        }
+                    }
+                }
+                for (SelectionKey key : selector.keys()) {
+                    key.channel().close();
+                }
+            } catch (IOException e) {
+                // The Selector itself failed, which takes every client of this thread with it
+                System.err.println(thread.getName() + " failed: " + e);
+                failedClients = clientCount;
+            }
+        }
+
+        // Drops one client, which closing its channel deregisters; channel is null if it never
+        // opened. The first failure of each thread is printed, the rest only counted
+        private void fail(SocketChannel channel, IOException e) {
+            if (failedClients++ == 0) {
+                System.err.println(thread.getName() + ": a client failed: " + e);
+            }
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.close();
+            } catch (IOException closeFailure) {
+                // Already gone
+            }
+        }
+    }
+
+    /*
+     one player: its own view of the board and at most one request in flight
+     */
+    private final class Client {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final SplittableRandom random;
+        private final ByteBuffer out = ByteBuffer.allocate(Protocol.REQUEST_BYTES);
+        private ByteBuffer in = ByteBuffer.allocate(4096);
+        // Squares known to be uncovered, and how many are not
+        private final boolean[] uncovered = new boolean[rows * columns];
+        private int covered;
+        private long sentAt;
+
+        Client(SocketChannel channel, SelectionKey key, SplittableRandom random) {
+            this.channel = channel;
+            this.key = key;
+            this.random = random;
+        }
+
+        void handle(LatencyHistogram latency) throws IOException {
+            if (key.isConnectable()) {
+                channel.finishConnect();
+                key.interestOps(SelectionKey.OP_READ);
+                newGame();
+                return;
+            }
+            if (key.isWritable()) {
+                send();
+            }
+            if (key.isReadable()) {
+                receive(latency);
+            }
+        }
+
+        private void newGame() throws IOException {
+            Arrays.fill(uncovered, false);
+            covered = uncovered.length;
+            request(Protocol.NEW_GAME, rows << 16 | columns, minesPercent);
+        }
+
+        private void request(byte op, int a, int b) throws IOException {
+            out.clear();
+            Protocol.writeRequest(out, op, a, b);
+            out.flip();
+            sentAt = System.nanoTime();
+            send();
+        }
+
+        private void send() throws IOException {
+            channel.write(out);
+            key.interestOps(out.hasRemaining() ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+
+        private void receive(LatencyHistogram latency) throws IOException {
+            if (channel.read(in) < 0) {
+                throw new IOException("Server closed the connection");
+            }
+            in.flip();
+            int length = Protocol.responseLength(in, 0);
+            if (length < 0 || in.remaining() < length) {
+                if (length > in.capacity()) {
+                    ByteBuffer grown = ByteBuffer.allocate(length);
+                    grown.put(in);
+                    in = grown;
+                } else {
+                    in.compact();
+                }
+                return;
+            }
+            completed.increment();
+            long now = System.nanoTime();
+            if (now >= measureFrom) {
+                latency.record(now - sentAt);
+            }
+            int status = in.get();
+            int count = in.getInt();
+            for (int k = 0; k < count; k++) {
+                int index = in.getInt();
+                byte value = in.get();
+                boolean isUncovered = value <= Protocol.VALUE_MINE;
+                if (isUncovered != uncovered[index]) {
+                    uncovered[index] = isUncovered;
+                    covered += isUncovered ? -1 : 1;
+                }
+            }
+            in.compact();
+            if ((status & Protocol.STATUS_FINISHED) != 0 || covered == 0) {
+                newGame();
+            } else {
+                revealRandom();
+            }
+        }
+
+        // Probes from a random square to the next one still covered
+        private void revealRandom() throws IOException {
+            int index = random.nextInt(uncovered.length);
+            while (uncovered[index]) {
+                index = index + 1 == uncovered.length ? 0 : index + 1;
+            }
+            request(Protocol.REVEAL, index / columns, index % columns);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.minesweeper.server;
+
+import java.nio.ByteBuffer;
+
+/*
+ wire format, big-endian over TCP.
+
+ Request, always 9 bytes: op, then two ints a and b
+   NEW_GAME  a = rows << 16 | columns, b = mine percent; reuses the board if the size is unchanged
+   REVEAL    a = row, b = column; on an uncovered number this chords instead
+   FLAG      a = row, b = column
+ Response: status byte, int count, then count changes of int index (row * columns + col) and a
+ value byte: 0-8 adjacent mines, VALUE_MINE, VALUE_FLAGGED or VALUE_COVERED.
+ Requests may be pipelined; responses come back in order.
+ */
+final class Protocol {
+
+    static final int REQUEST_BYTES = 9;
+    static final int RESPONSE_HEADER_BYTES = 5;
+    static final int CHANGE_BYTES = 5;
+
+    static final byte NEW_GAME = 0;
+    static final byte REVEAL = 1;
+    static final byte FLAG = 2;
+
+    static final int STATUS_FINISHED = 1;
+    static final int STATUS_WON = 2;
+    static final int STATUS_HIT_MINE = 4;
+    static final int STATUS_ERROR = 8;
+
+    static final byte VALUE_MINE = 9;
+    static final byte VALUE_FLAGGED = 10;
+    static final byte VALUE_COVERED = 11;
+
+    static final int MAX_SIDE = 1000;
+
+    private Protocol() {
+    }
+
+    static void writeRequest(ByteBuffer out, byte op, int a, int b) {
+        out.put(op).putInt(a).putInt(b);
+    }
+
+    // Bytes of the whole response starting at position, or -1 if its header has not arrived yet
+    static int responseLength(ByteBuffer in, int position) {
+        if (in.limit() - position < RESPONSE_HEADER_BYTES) {
+            return -1;
+        }
+        return RESPONSE_HEADER_BYTES + in.getInt(position + 1) * CHANGE_BYTES;
+    }
+}
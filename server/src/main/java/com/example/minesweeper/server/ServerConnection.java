@@ -0,0 +1,170 @@
+package com.example.minesweeper.server;
+
+import com.example.minesweeper.CellChangeSet;
+import com.example.minesweeper.GameBoard;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ one client and its game session. Only the event loop that owns the connection touches it, so
+ the GameBoard needs no locking. Requests are decoded straight from the read buffer and the
+ responses appended to a write buffer that grows for big flood reveals and is kept for reuse.
+
+ A client that pipelines requests without reading the responses would grow the write buffer
+ without limit. Once MAX_PENDING_BYTES are waiting, decoding stops and OP_READ is cleared, so
+ unread requests back up in the socket and the client's own sends block. Decoding resumes as
+ the socket drains. One response can still take the buffer past the limit, up to a whole
+ MAX_SIDE board, and a buffer grown past the limit is dropped once it is empty.
+ */
+final class ServerConnection {
+
+    private static final int INITIAL_BUFFER_BYTES = 4096;
+    // Responses waiting for the socket before this connection stops taking requests
+    static final int MAX_PENDING_BYTES = 1 << 20;
+
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final SplittableRandom random;
+    // Shared by every connection of the server
+    private final LongAdder commands;
+    private final ByteBuffer in = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+    // Kept in write mode: position is the end of the pending responses
+    private ByteBuffer out = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+    private GameBoard board;
+
+    ServerConnection(SocketChannel channel, SelectionKey key, SplittableRandom random, LongAdder commands) {
+        this.channel = channel;
+        this.key = key;
+        this.random = random;
+        this.commands = commands;
+    }
+
+    // Handles every complete request that has arrived; false once the client has gone
+    boolean read() throws IOException {
+        if (channel.read(in) < 0) {
+            return false;
+        }
+        handleRequests();
+        flush();
+        return true;
+    }
+
+    // Handles the complete requests in the read buffer until MAX_PENDING_BYTES of responses wait
+    private void handleRequests() {
+        in.flip();
+        int handled = 0;
+        while (in.remaining() >= Protocol.REQUEST_BYTES && out.position() < MAX_PENDING_BYTES) {
+            handle(in.get(), in.getInt(), in.getInt());
+            handled++;
+        }
+        commands.add(handled);
+        in.compact();
+    }
+
+    /*
+     writes what the socket takes and waits for OP_WRITE for the rest. Requests held back by the
+     limit are handled as soon as there is room, and OP_READ stays off until there is
+     */
+    void flush() throws IOException {
+        while (true) {
+            out.flip();
+            channel.write(out);
+            out.compact();
+            if (out.position() >= MAX_PENDING_BYTES || in.position() < Protocol.REQUEST_BYTES) {
+                break;
+            }
+            handleRequests();
+        }
+        if (out.position() == 0 && out.capacity() > MAX_PENDING_BYTES) {
+            out = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+        }
+        int ops = out.position() < MAX_PENDING_BYTES ? SelectionKey.OP_READ : 0;
+        key.interestOps(out.position() > 0 ? ops | SelectionKey.OP_WRITE : ops);
+    }
+
+    private void handle(byte op, int a, int b) {
+        if (op == Protocol.NEW_GAME) {
+            newGame(a >>> 16, a & 0xFFFF, b);
+            return;
+        }
+        if (board == null || a < 0 || a >= board.getRows() || b < 0 || b >= board.getColumns()
+                || (op != Protocol.REVEAL && op != Protocol.FLAG)) {
+            writeHeader(Protocol.STATUS_ERROR, 0);
+            return;
+        }
+        boolean hitMine = false;
+        if (op == Protocol.FLAG) {
+            board.toggleFlag(a, b);
+        } else if (board.getState(a, b) == GameBoard.CellState.UNCOVERED) {
+            hitMine = board.chord(a, b);
+        } else {
+            hitMine = board.revealCell(a, b);
+        }
+        writeChanges(hitMine);
+    }
+
+    private void newGame(int rows, int columns, int minesPercent) {
+        if (rows < 1 || rows > Protocol.MAX_SIDE || columns < 1 || columns > Protocol.MAX_SIDE
+                || minesPercent < 0 || minesPercent > 99) {
+            writeHeader(Protocol.STATUS_ERROR, 0);
+            return;
+        }
+        if (board != null && board.getRows() == rows && board.getColumns() == columns
+                && board.getMinesPercent() == minesPercent) {
+            board.reset(random.nextLong());
+        } else {
+            board = new GameBoard(rows, columns, minesPercent, random.nextLong(), true);
+        }
+        writeHeader(0, 0);
+    }
+
+    private void writeChanges(boolean hitMine) {
+        CellChangeSet changes = board.getLastChanges();
+        int status = (board.isGameFinished() ? Protocol.STATUS_FINISHED : 0)
+                | (board.isGameWon() ? Protocol.STATUS_WON : 0)
+                | (hitMine ? Protocol.STATUS_HIT_MINE : 0);
+        writeHeader(status, changes.size());
+        int columns = board.getColumns();
+        for (int k = 0; k < changes.size(); k++) {
+            int index = changes.get(k);
+            out.putInt(index).put(valueOf(index / columns, index % columns));
+        }
+    }
+
+    private byte valueOf(int row, int col) {
+        switch (board.getState(row, col)) {
+            case UNCOVERED:
+                return board.isMine(row, col) ? Protocol.VALUE_MINE : (byte) board.getAdjacentMines(row, col);
+            case FLAGGED:
+                return Protocol.VALUE_FLAGGED;
+            default:
+                return Protocol.VALUE_COVERED;
+        }
+    }
+
+    // Makes room for the whole response up front, so the change loop does no checks
+    private void writeHeader(int status, int count) {
+        int bytes = Protocol.RESPONSE_HEADER_BYTES + count * Protocol.CHANGE_BYTES;
+        if (out.remaining() < bytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes));
+            out.flip();
+            grown.put(out);
+            out = grown;
+        }
+        out.put((byte) status).putInt(count);
+    }
+
+    void close() {
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Already gone
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.minesweeper.simulator;
+
+import com.example.minesweeper.GameBoard;
+
+import java.util.SplittableRandom;
+
+/*
+ draws covered squares uniformly at random without replacement. Squares are drawn from a
+ shrinking permutation, so finding a covered square costs O(1) amortised over a game however
+ few squares are left
+ */
+final class CoveredSquares {
+
+    private final GameBoard board;
+    private final SplittableRandom random;
+    private final int[] remaining;
+    private int size;
+
+    CoveredSquares(GameBoard board, SplittableRandom random) {
+        this.board = board;
+        this.random = random;
+        this.remaining = new int[board.getRows() * board.getColumns()];
+    }
+
+    void reset() {
+        for (int i = 0; i < remaining.length; i++) {
+            remaining[i] = i;
+        }
+        size = remaining.length;
+    }
+
+    // A random covered square, or -1 when none is left
+    int draw() {
+        int columns = board.getColumns();
+        while (size > 0) {
+            int pick = random.nextInt(size);
+            int index = remaining[pick];
+            remaining[pick] = remaining[--size];
+            remaining[size] = index;
+            if (board.getState(index / columns, index % columns) == GameBoard.CellState.COVERED) {
+                return index;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.minesweeper.simulator;
+
+import com.example.minesweeper.EngineMetricsListener;
+import com.example.minesweeper.GameBoard;
+
+/*
+ engine counters for one worker's board, plain fields since only that worker touches them;
+ they are added to the shared SimulationStats a batch at a time
+ */
+final class EngineCounters implements EngineMetricsListener {
+
+    long floods;
+    long floodCells;
+    long neighbourProbes;
+    long placements;
+    long collisions;
+    long initNanos;
+    long placementNanos;
+    long adjacencyNanos;
+
+    @Override
+    public void onBoardInitialized(int cells, long nanos) {
+        initNanos += nanos;
+    }
+
+    @Override
+    public void onMinesPlaced(int mines, int collisions, long nanos) {
+        placements++;
+        this.collisions += collisions;
+        placementNanos += nanos;
+    }
+
+    @Override
+    public void onAdjacencyCalculated(GameBoard.AdjacencyStrategy strategy, long nanos) {
+        adjacencyNanos += nanos;
+    }
+
+    @Override
+    public void onFloodReveal(int cellsOpened, int neighbourProbes) {
+        floods++;
+        floodCells += cellsOpened;
+        this.neighbourProbes += neighbourProbes;
+    }
+
+    void clear() {
+        floods = 0;
+        floodCells = 0;
+        neighbourProbes = 0;
+        placements = 0;
+        collisions = 0;
+        initNanos = 0;
+        placementNanos = 0;
+        adjacencyNanos = 0;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.minesweeper.simulator;
+
+import com.example.minesweeper.CellChangeSet;
+import com.example.minesweeper.GameBoard;
+import com.example.minesweeper.Solver;
+
+import java.util.SplittableRandom;
+
+/*
+ opens the centre, then reveals the Solver's safe squares; when it runs out of deductions it
+ guesses a random covered square that is not a known mine
+ */
+public class LogicPlayer implements PlayerStrategy {
+
+    public static final Factory FACTORY = new Factory() {
+        @Override
+        public PlayerStrategy create(GameBoard board, SplittableRandom random) {
+            return new LogicPlayer(board, random);
+        }
+    };
+
+    protected final GameBoard board;
+    protected final Solver solver;
+    private final CoveredSquares covered;
+    // Safe squares deduced but not revealed yet; some may have been opened by a flood since
+    private int[] pending = new int[64];
+    private int pendingSize;
+    private boolean firstMove;
+    private int guesses;
+
+    public LogicPlayer(GameBoard board, SplittableRandom random) {
+        this.board = board;
+        this.solver = new Solver(board);
+        this.covered = new CoveredSquares(board, random);
+    }
+
+    @Override
+    public void newGame() {
+        solver.reset();
+        covered.reset();
+        pendingSize = 0;
+        firstMove = true;
+        guesses = 0;
+    }
+
+    @Override
+    public int nextMove(CellChangeSet lastChanges) {
+        if (firstMove) {
+            firstMove = false;
+            return (board.getRows() / 2) * board.getColumns() + board.getColumns() / 2;
+        }
+        solver.update(lastChanges);
+        CellChangeSet safe = solver.getSafeCells();
+        for (int k = 0; k < safe.size(); k++) {
+            push(safe.get(k));
+        }
+
+        int columns = board.getColumns();
+        while (pendingSize > 0) {
+            int index = pending[--pendingSize];
+            if (board.getState(index / columns, index % columns) == GameBoard.CellState.COVERED) {
+                return index;
+            }
+        }
+        guesses++;
+        return guess();
+    }
+
+    // Called when no safe square is known
+    protected int guess() {
+        int columns = board.getColumns();
+        int index = covered.draw();
+        while (index >= 0 && solver.isKnownMine(index / columns, index % columns)) {
+            index = covered.draw();
+        }
+        return index;
+    }
+
+    private void push(int index) {
+        if (pendingSize == pending.length) {
+            int[] grown = new int[pendingSize * 2];
+            System.arraycopy(pending, 0, grown, 0, pendingSize);
+            pending = grown;
+        }
+        pending[pendingSize++] = index;
+    }
+
+    @Override
+    public int getGuesses() {
+        return guesses;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.minesweeper.simulator;
+
+import com.example.minesweeper.CellChangeSet;
+import com.example.minesweeper.GameBoard;
+
+import java.util.SplittableRandom;
+
+/*
+ an automated player. Each worker thread owns one instance bound to its own reused board,
+ so implementations may keep per-game state without any synchronisation
+ */
+public interface PlayerStrategy {
+
+    /*
+     creates a player for one worker thread
+     */
+    interface Factory {
+        PlayerStrategy create(GameBoard board, SplittableRandom random);
+    }
+
+    // Called after the board has been reset, before the first move of a game
+    void newGame();
+
+    // Next square to reveal as row * columns + col, or -1 to give up.
+    // lastChanges holds the squares changed by the previous move and is empty before the first one
+    int nextMove(CellChangeSet lastChanges);
+
+    // Moves of the current game after the opening one that were not backed by a deduction
+    int getGuesses();
+}
@@ -0,0 +1,48 @@
+package com.example.minesweeper.simulator;
+
+import com.example.minesweeper.CellChangeSet;
+import com.example.minesweeper.GameBoard;
+
+import java.util.SplittableRandom;
+
+/*
+ reveals covered squares in random order; the baseline the other players are measured against
+ */
+public class RandomPlayer implements PlayerStrategy {
+
+    public static final Factory FACTORY = new Factory() {
+        @Override
+        public PlayerStrategy create(GameBoard board, SplittableRandom random) {
+            return new RandomPlayer(board, random);
+        }
+    };
+
+    private final CoveredSquares covered;
+    private boolean opened;
+    private int guesses;
+
+    public RandomPlayer(GameBoard board, SplittableRandom random) {
+        this.covered = new CoveredSquares(board, random);
+    }
+
+    @Override
+    public void newGame() {
+        covered.reset();
+        opened = false;
+        guesses = 0;
+    }
+
+    @Override
+    public int nextMove(CellChangeSet lastChanges) {
+        if (opened) {
+            guesses++;
+        }
+        opened = true;
+        return covered.draw();
+    }
+
+    @Override
+    public int getGuesses() {
+        return guesses;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.minesweeper.simulator;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/*
+ streams report lines to the results file as the simulation runs, so a long run can be
+ followed with tail -f. A .json or .jsonl file gets one JSON object per line, anything else CSV
+ */
+final class ResultsWriter implements AutoCloseable {
+
+    private static final String[] COLUMNS = {
+            "elapsed_ms", "size", "mines_percent", "player", "games", "wins", "win_rate",
+            "moves_per_game", "guesses_per_game", "micros_per_game", "max_micros", "games_per_second",
+            "cells_per_flood", "probes_per_flood", "collisions_per_game", "init_micros", "placement_micros",
+            "adjacency_micros", "final"
+    };
+
+    private final Writer out;
+    private final boolean json;
+
+    ResultsWriter(String path) throws IOException {
+        this.out = new BufferedWriter(new FileWriter(path));
+        this.json = path.endsWith(".json") || path.endsWith(".jsonl");
+        if (!json) {
+            out.write(String.join(",", COLUMNS));
+            out.write('\n');
+            out.flush();
+        }
+    }
+
+    void write(SimulationStats stats, SimulationStats.Snapshot snapshot, long elapsedNanos, boolean last)
+            throws IOException {
+        double elapsedSeconds = elapsedNanos / 1e9;
+        Object[] values = {
+                elapsedNanos / 1_000_000,
+                stats.size,
+                stats.minesPercent,
+                stats.player,
+                snapshot.games,
+                snapshot.wins,
+                snapshot.winRate(),
+                snapshot.perGame(snapshot.moves),
+                snapshot.perGame(snapshot.guesses),
+                snapshot.perGame(snapshot.nanos) / 1000,
+                snapshot.maxNanos / 1000.0,
+                elapsedSeconds == 0 ? 0.0 : snapshot.games / elapsedSeconds,
+                snapshot.perFlood(snapshot.floodCells),
+                snapshot.perFlood(snapshot.neighbourProbes),
+                snapshot.perGame(snapshot.collisions),
+                snapshot.perGame(snapshot.initNanos) / 1000,
+                snapshot.perGame(snapshot.placementNanos) / 1000,
+                snapshot.perGame(snapshot.adjacencyNanos) / 1000,
+                last
+        };
+
+        StringBuilder line = new StringBuilder();
+        if (json) {
+            line.append('{');
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                line.append('"').append(COLUMNS[i]).append("\":");
+                if (values[i] instanceof String) {
+                    line.append('"').append(values[i]).append('"');
+                } else {
+                    line.append(format(values[i]));
+                }
+            }
+            line.append('}');
+        } else {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                line.append(format(values[i]));
+            }
+        }
+        line.append('\n');
+        out.write(line.toString());
+        out.flush();
+    }
+
+    private static String format(Object value) {
+        if (value instanceof Double) {
+            return String.format(Locale.ROOT, "%.4f", (Double) value);
+        }
+        return String.valueOf(value);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
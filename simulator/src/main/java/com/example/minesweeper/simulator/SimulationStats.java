@@ -0,0 +1,120 @@
+package com.example.minesweeper.simulator;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+
+/*
+ running totals for one simulated configuration. Every worker records into the same
+ instance; LongAdder keeps that from turning into a contended counter at millions of games
+ */
+final class SimulationStats {
+
+    final String size;
+    final int minesPercent;
+    final String player;
+
+    private final LongAdder games = new LongAdder();
+    private final LongAdder wins = new LongAdder();
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder guesses = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(new LongBinaryOperator() {
+        @Override
+        public long applyAsLong(long left, long right) {
+            return Math.max(left, right);
+        }
+    }, 0);
+    private final LongAdder floods = new LongAdder();
+    private final LongAdder floodCells = new LongAdder();
+    private final LongAdder neighbourProbes = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+    private final LongAdder initNanos = new LongAdder();
+    private final LongAdder placementNanos = new LongAdder();
+    private final LongAdder adjacencyNanos = new LongAdder();
+
+    SimulationStats(String size, int minesPercent, String player) {
+        this.size = size;
+        this.minesPercent = minesPercent;
+        this.player = player;
+    }
+
+    void record(boolean won, int gameMoves, int gameGuesses, long gameNanos) {
+        games.increment();
+        if (won) {
+            wins.increment();
+        }
+        moves.add(gameMoves);
+        guesses.add(gameGuesses);
+        nanos.add(gameNanos);
+        maxNanos.accumulate(gameNanos);
+    }
+
+    // Adds a worker's engine counters, then clears them for its next batch
+    void recordEngine(EngineCounters counters) {
+        floods.add(counters.floods);
+        floodCells.add(counters.floodCells);
+        neighbourProbes.add(counters.neighbourProbes);
+        collisions.add(counters.collisions);
+        initNanos.add(counters.initNanos);
+        placementNanos.add(counters.placementNanos);
+        adjacencyNanos.add(counters.adjacencyNanos);
+        counters.clear();
+    }
+
+    /*
+     consistent enough view of the totals for one report line; a game finishing while it is
+     taken may be counted in some columns and not others, which the final snapshot never sees
+     */
+    static final class Snapshot {
+        final long games;
+        final long wins;
+        final long moves;
+        final long guesses;
+        final long nanos;
+        final long maxNanos;
+        final long floods;
+        final long floodCells;
+        final long neighbourProbes;
+        final long collisions;
+        final long initNanos;
+        final long placementNanos;
+        final long adjacencyNanos;
+
+        Snapshot(long games, long wins, long moves, long guesses, long nanos, long maxNanos, long floods,
+                 long floodCells, long neighbourProbes, long collisions, long initNanos, long placementNanos,
+                 long adjacencyNanos) {
+            this.games = games;
+            this.wins = wins;
+            this.moves = moves;
+            this.guesses = guesses;
+            this.nanos = nanos;
+            this.maxNanos = maxNanos;
+            this.floods = floods;
+            this.floodCells = floodCells;
+            this.neighbourProbes = neighbourProbes;
+            this.collisions = collisions;
+            this.initNanos = initNanos;
+            this.placementNanos = placementNanos;
+            this.adjacencyNanos = adjacencyNanos;
+        }
+
+        double winRate() {
+            return games == 0 ? 0 : (double) wins / games;
+        }
+
+        double perGame(long total) {
+            return games == 0 ? 0 : (double) total / games;
+        }
+
+        double perFlood(long total) {
+            return floods == 0 ? 0 : (double) total / floods;
+        }
+    }
+
+    Snapshot snapshot() {
+        return new Snapshot(games.sum(), wins.sum(), moves.sum(), guesses.sum(), nanos.sum(), maxNanos.get(),
+                floods.sum(), floodCells.sum(), neighbourProbes.sum(), collisions.sum(), initNanos.sum(),
+                placementNanos.sum(), adjacencyNanos.sum());
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.minesweeper.simulator;
+
+import com.example.minesweeper.GameBoard;
+import com.example.minesweeper.ProbabilityEngine;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ headless runner that plays many games against GameBoard on every core and streams aggregate
+ statistics, with the engine's own counters from EngineMetricsListener, to a results file.
+
+ Every combination of --sizes, --mines and --players is run in turn. Each worker thread owns
+ one board, reset with a new seed for every game, one player and its own split of the root
+ random generator, so the only shared state is the game counter and the LongAdder totals.
+
+ ./gradlew :simulator:run --args="--sizes 9x9,16x16,16x30 --mines 12,15,20 --players logic,probability --games 100000 --out results.csv"
+
+ Other options: --threads, --seed, --report-millis, and --component-cells for the largest
+ frontier component the probability player enumerates; larger ones make its odds approximate.
+ */
+public class Simulator {
+
+    // Games a worker claims at a time, so the shared counter is touched once per batch
+    private static final int BATCH = 64;
+
+    private String[] sizes = {"9x9", "16x16", "16x30"};
+    private int[] minesPercents = {15};
+    private String[] players = {"logic"};
+    private long games = 100_000;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long seed = System.nanoTime();
+    private String out = "simulation-results.csv";
+    private long reportMillis = 1000;
+    private int componentCells = ProbabilityEngine.MAX_COMPONENT_CELLS;
+    private final Map<String, PlayerStrategy.Factory> playerFactories = new LinkedHashMap<>();
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Simulator simulator = new Simulator();
+        simulator.parseArguments(args);
+        simulator.run();
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--sizes":
+                    sizes = value.split(",");
+                    break;
+                case "--mines":
+                    String[] parts = value.split(",");
+                    minesPercents = new int[parts.length];
+                    for (int k = 0; k < parts.length; k++) {
+                        minesPercents[k] = Integer.parseInt(parts[k]);
+                    }
+                    break;
+                case "--players":
+                    players = value.split(",");
+                    break;
+                case "--games":
+                    games = Long.parseLong(value);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--out":
+                    out = value;
+                    break;
+                case "--report-millis":
+                    reportMillis = Long.parseLong(value);
+                    break;
+                case "--component-cells":
+                    componentCells = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (args.length % 2 != 0) {
+            throw new IllegalArgumentException("Missing value for " + args[args.length - 1]);
+        }
+        playerFactories.put("random", RandomPlayer.FACTORY);
+        playerFactories.put("logic", LogicPlayer.FACTORY);
+        playerFactories.put("probability", ProbabilityPlayer.factory(componentCells));
+        for (String player : players) {
+            if (!playerFactories.containsKey(player)) {
+                throw new IllegalArgumentException("Unknown player " + player
+                        + ", expected one of " + playerFactories.keySet());
+            }
+        }
+    }
+
+    private void run() throws IOException, InterruptedException {
+        SplittableRandom root = new SplittableRandom(seed);
+        System.out.println("Seed " + seed + ", " + threads + " threads, writing " + out);
+        try (ResultsWriter writer = new ResultsWriter(out)) {
+            for (String size : sizes) {
+                for (int minesPercent : minesPercents) {
+                    for (String player : players) {
+                        runConfiguration(writer, root, size, minesPercent, player);
+                    }
+                }
+            }
+        }
+    }
+
+    private void runConfiguration(ResultsWriter writer, SplittableRandom root, String size,
+                                  int minesPercent, String player) throws IOException, InterruptedException {
+        int rows = Integer.parseInt(size.substring(0, size.indexOf('x')));
+        int columns = Integer.parseInt(size.substring(size.indexOf('x') + 1));
+        SimulationStats stats = new SimulationStats(size, minesPercent, player);
+        AtomicLong claimed = new AtomicLong();
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(new Worker(rows, columns, minesPercent, playerFactories.get(player),
+                    root.split(), claimed, stats), "simulator-" + t);
+            workers.add(worker);
+        }
+
+        long start = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        // Stream a progress line every reportMillis until the last worker is done
+        for (Thread worker : workers) {
+            while (worker.isAlive()) {
+                worker.join(reportMillis);
+                if (worker.isAlive()) {
+                    report(writer, stats, System.nanoTime() - start, false);
+                }
+            }
+        }
+        report(writer, stats, System.nanoTime() - start, true);
+    }
+
+    private static void report(ResultsWriter writer, SimulationStats stats, long elapsedNanos, boolean last)
+            throws IOException {
+        SimulationStats.Snapshot snapshot = stats.snapshot();
+        writer.write(stats, snapshot, elapsedNanos, last);
+        System.out.printf("%s %d%% %-11s %,12d games  win %6.2f%%  %8.1f us/game%s%n",
+                stats.size, stats.minesPercent, stats.player, snapshot.games, snapshot.winRate() * 100,
+                snapshot.perGame(snapshot.nanos) / 1000, last ? "  done" : "");
+    }
+
+    /*
+     plays games on one reused board until the shared counter reaches the total
+     */
+    private class Worker implements Runnable {
+        private final GameBoard board;
+        private final PlayerStrategy player;
+        private final SplittableRandom random;
+        private final AtomicLong claimed;
+        private final SimulationStats stats;
+        private final EngineCounters engineCounters = new EngineCounters();
+
+        Worker(int rows, int columns, int minesPercent, PlayerStrategy.Factory factory,
+               SplittableRandom random, AtomicLong claimed, SimulationStats stats) {
+            this.board = new GameBoard(rows, columns, minesPercent, random.nextLong(), true,
+                    GameBoard.AdjacencyStrategy.AUTO, engineCounters);
+            this.player = factory.create(board, random.split());
+            this.random = random;
+            this.claimed = claimed;
+            this.stats = stats;
+        }
+
+        @Override
+        public void run() {
+            int columns = board.getColumns();
+            long first;
+            while ((first = claimed.getAndAdd(BATCH)) < games) {
+                long last = Math.min(games, first + BATCH);
+                for (long game = first; game < last; game++) {
+                    long start = System.nanoTime();
+                    board.reset(random.nextLong());
+                    player.newGame();
+                    int moves = 0;
+                    while (!board.isGameFinished()) {
+                        int index = player.nextMove(board.getLastChanges());
+                        if (index < 0) {
+                            break;
+                        }
+                        board.revealCell(index / columns, index % columns);
+                        moves++;
+                    }
+                    stats.record(board.isGameWon(), moves, player.getGuesses(), System.nanoTime() - start);
+                }
+                stats.recordEngine(engineCounters);
+            }
+        }
+    }
+}